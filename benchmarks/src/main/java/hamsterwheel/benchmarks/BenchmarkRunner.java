@@ -0,0 +1,21 @@
+package hamsterwheel.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// the usual JMH command line with the gc profiler always on, so every result comes with the
+// bytes allocated per operation (gc.alloc.rate.norm). at 8 kHz all consumers together have
+// 125 us per sample, and the capture path is meant to allocate nothing
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
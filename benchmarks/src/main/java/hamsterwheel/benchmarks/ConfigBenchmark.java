@@ -0,0 +1,29 @@
+package hamsterwheel.benchmarks;
+
+import hamsterwheel.config.Config;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// reading and writing config.cfg, which happens on startup, exit and "reset settings"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigBenchmark {
+
+    private final Config config = new Config();
+    private final String text = config.toString();
+
+    @Benchmark
+    public Config parse() {
+        return config.parse(text);
+    }
+
+    @Benchmark
+    public String toStringConfig() {
+        return config.toString();
+    }
+}
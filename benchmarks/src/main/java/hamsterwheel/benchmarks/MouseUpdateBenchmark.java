@@ -0,0 +1,48 @@
+package hamsterwheel.benchmarks;
+
+import hamsterwheel.core.MouseUpdate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the cost of getting one sample into a MouseUpdate and of turning it into a stats line
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MouseUpdateBenchmark {
+
+    private final SampleStream stream = new SampleStream();
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    private final StringBuilder line = new StringBuilder(64);
+
+    // a new object for every position change
+    @Benchmark
+    public MouseUpdate constructPerSample() {
+        stream.advance();
+        return new MouseUpdate(stream.getTime(), stream.getX(), stream.getY(), SampleStream.DPI, SampleStream.POLLING_RATE, 0);
+    }
+
+    // what the samplers do, one update reused for every sample
+    @Benchmark
+    public MouseUpdate reusePerSample() {
+        stream.next(mouseUpdate);
+        return mouseUpdate;
+    }
+
+    @Benchmark
+    public String toStringPerSample() {
+        stream.next(mouseUpdate);
+        return mouseUpdate.toString();
+    }
+
+    // how Log.stats builds the line
+    @Benchmark
+    public StringBuilder appendToReusedBuilder() {
+        stream.next(mouseUpdate);
+        line.setLength(0);
+        return mouseUpdate.appendTo(line);
+    }
+}
@@ -0,0 +1,50 @@
+package hamsterwheel.benchmarks;
+
+import hamsterwheel.core.MouseUpdate;
+
+// a 300 px circle sampled at 8 kHz, precomputed so the benchmarks measure the code under test
+// and not the trigonometry. timestamps keep going up from lap to lap like a real session
+class SampleStream {
+
+    static final long INTERVAL_NANOS = 125_000;
+    static final int DPI = 1600, POLLING_RATE = 8000;
+    private static final int LENGTH = 4096;
+
+    private final int[] xs = new int[LENGTH], ys = new int[LENGTH];
+    private long index = 0, time = 0;
+    private int x, y;
+
+    SampleStream() {
+        for (int i = 0; i < LENGTH; i++) {
+            double angle = 2 * Math.PI * i / LENGTH;
+            xs[i] = 960 + (int) Math.round(300 * Math.cos(angle));
+            ys[i] = 540 + (int) Math.round(300 * Math.sin(angle));
+        }
+    }
+
+    void advance() {
+        int i = (int) (index++ % LENGTH);
+        time += INTERVAL_NANOS;
+        x = xs[i];
+        y = ys[i];
+    }
+
+    // moves the sample into the reused update the way the sampling thread does
+    void next(MouseUpdate mouseUpdate) {
+        advance();
+        mouseUpdate.set(time, x, y, DPI, POLLING_RATE, 0);
+        mouseUpdate.setHasPrevious(index > 1);
+    }
+
+    long getTime() {
+        return time;
+    }
+
+    int getX() {
+        return x;
+    }
+
+    int getY() {
+        return y;
+    }
+}
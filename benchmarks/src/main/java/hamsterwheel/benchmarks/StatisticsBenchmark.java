@@ -0,0 +1,72 @@
+package hamsterwheel.benchmarks;
+
+import hamsterwheel.core.AnomalyDetector;
+import hamsterwheel.core.Kinematics;
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.core.SampleHistory;
+import hamsterwheel.core.SessionStatistics;
+import hamsterwheel.gui.IntervalOverlay;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the per-sample work of the consumers. handlePosition is what MainPanel.handlePosition does
+// without the repaint request, the others are its parts and the other consumers on their own.
+// the jump, polling rate average and polling rate class calculations are private to
+// SessionStatistics and measured through sessionStatistics
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class StatisticsBenchmark {
+
+    private final SampleStream stream = new SampleStream();
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    private final MouseUpdate latestUpdate = new MouseUpdate();
+    private final SampleHistory history = new SampleHistory(16384);
+    private final SessionStatistics statistics = new SessionStatistics();
+    private final IntervalOverlay intervalOverlay = new IntervalOverlay();
+    private final Kinematics kinematics = new Kinematics();
+    private final AnomalyDetector anomalyDetector = new AnomalyDetector(anomaly -> {
+    });
+
+    @Benchmark
+    public long handlePosition() {
+        stream.next(mouseUpdate);
+        latestUpdate.copyFrom(mouseUpdate);
+        history.add(mouseUpdate.getTime(), mouseUpdate.getX(), mouseUpdate.getY(), mouseUpdate.getButtonsPressed());
+        statistics.handle(mouseUpdate);
+        intervalOverlay.record(mouseUpdate.getTime(), mouseUpdate.getNanosSinceLastUpdate());
+        return statistics.getSamples();
+    }
+
+    @Benchmark
+    public long sessionStatistics() {
+        stream.next(mouseUpdate);
+        statistics.handle(mouseUpdate);
+        return statistics.getSamples();
+    }
+
+    @Benchmark
+    public long sampleHistory() {
+        stream.next(mouseUpdate);
+        history.add(mouseUpdate.getTime(), mouseUpdate.getX(), mouseUpdate.getY(), mouseUpdate.getButtonsPressed());
+        return history.getCount();
+    }
+
+    @Benchmark
+    public double kinematics() {
+        stream.next(mouseUpdate);
+        kinematics.update(mouseUpdate);
+        return kinematics.getVelocity();
+    }
+
+    @Benchmark
+    public long anomalyDetector() {
+        stream.next(mouseUpdate);
+        anomalyDetector.accept(mouseUpdate);
+        return anomalyDetector.getTotal();
+    }
+}
@@ -0,0 +1,52 @@
+package hamsterwheel.benchmarks;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.util.Log;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Log.stats as the "stats" consumer calls it for every sample. with output off only the live
+// line and the kinematics are worked out, the other values write the stats log in that format
+// into ./logs. the file is written on a background thread, a writer that falls behind drops
+// records instead of slowing this down, see the "Stats log closed" line at the end of a run
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatsLogBenchmark {
+
+    @Param({"off", "csv", "binary", "mapped"})
+    public String output;
+
+    // with a stat consumer, like the STATS panel
+    @Param({"false", "true"})
+    public boolean statsPanel;
+
+    private final SampleStream stream = new SampleStream();
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    private final Config config = new Config();
+    private long consumed = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        config.setEnableStatisticsLogging(!output.equals("off"));
+        if (config.isEnableStatisticsLogging()) config.setStatisticsLogFormat(Arrays.asList(Config.LOG_FORMAT_NAMES).indexOf(output));
+        if (statsPanel) Log.addStatConsumer(line -> consumed += line.length());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Log.shutdown();
+    }
+
+    @Benchmark
+    public void stats() {
+        stream.next(mouseUpdate);
+        Log.stats(mouseUpdate, config);
+    }
+}
@@ -0,0 +1,191 @@
+package hamsterwheel.analysis;
+
+import hamsterwheel.capture.CaptureFormat;
+import hamsterwheel.capture.MappedCaptureRecorder;
+import hamsterwheel.capture.SampleReader;
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.core.SessionStatistics;
+import hamsterwheel.util.Log;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// headless analysis of a directory of captures: every file is streamed through the same
+// SessionStatistics the STATISTICS panel uses, files are spread over a fork-join pool and the
+// results end up in one summary table
+public class BatchAnalyzer {
+
+    private static final String[] COLUMNS = {"file", "samples", "duration s", "rate Hz", "poll max", "poll avg",
+            "poll class", "longest px", "shortest px", "fastest px/s", "accel max px/s2", "lmb-rmb ms", "lmb dur ms", "lmb int ms"};
+
+    public static class Result {
+        private final Path file;
+        private final SessionStatistics statistics;
+        private final long durationNanos;
+
+        Result(Path file, SessionStatistics statistics, long durationNanos) {
+            this.file = file;
+            this.statistics = statistics;
+            this.durationNanos = durationNanos;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public SessionStatistics getStatistics() {
+            return statistics;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        // Locale.ROOT, the row is joined with commas into summary.csv
+        Object[] toRow() {
+            float seconds = durationNanos / 1000000000f;
+            return new Object[]{file.getFileName(), statistics.getSamples(), String.format(Locale.ROOT, "%.2f", seconds),
+                    String.format(Locale.ROOT, "%.0f", seconds > 0 ? statistics.getSamples() / seconds : 0f),
+                    statistics.getMaxPollingRate(), statistics.getAvgPollingRate(), statistics.getPollingRateClass(),
+                    statistics.getLongestJump(), statistics.getShortestJump(), statistics.getFastestMovement(),
+                    statistics.getHighestAcceleration(),
+                    String.format(Locale.ROOT, "%.2f", statistics.getClickTimer().getRelativeClickLatency()),
+                    String.format(Locale.ROOT, "%.2f", statistics.getClickTimer().getClickDuration()),
+                    String.format(Locale.ROOT, "%.2f", statistics.getClickTimer().getClickInterval())};
+        }
+    }
+
+    // usage: -analyze <dir> [-o summary.csv] [-threads n]
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: -analyze <capture dir> [-o summary.csv] [-threads n]");
+            return;
+        }
+        Path dir = Path.of(args[0]), output = Path.of("summary.csv");
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length - 1; i++) {
+            if (args[i].equals("-o")) output = Path.of(args[++i]);
+            else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<Result> results = analyze(findCaptures(dir), threads);
+            printTable(results);
+            writeCsv(results, output);
+            Log.info("Analyzed %d captures in %.1f s, summary written to %s".formatted(results.size(),
+                    (System.nanoTime() - start) / 1000000000f, output));
+        } catch (IOException e) {
+            Log.error("Batch analysis of %s failed: %s".formatted(dir, e.getMessage()));
+        }
+    }
+
+    // stats logs, binary captures and the first segment of every mapped capture
+    public static List<Path> findCaptures(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).filter(path -> {
+                String name = path.getFileName().toString();
+                return name.endsWith(CaptureFormat.FILE_EXTENSION)
+                        || name.endsWith("-0001" + MappedCaptureRecorder.FILE_EXTENSION)
+                        || (name.startsWith("stats") && (name.endsWith(".log") || name.endsWith(".csv")));
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    public static List<Result> analyze(List<Path> files, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Result> results = pool.invoke(new AnalyzeTask(files));
+            results.sort(Comparator.comparing(Result::getFile));
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // streams one file, only the reader's buffer and the statistics are held in memory
+    public static Result analyze(Path file) throws IOException {
+        SessionStatistics statistics = new SessionStatistics();
+        MouseUpdate mouseUpdate = new MouseUpdate();
+        long firstTime = 0, lastTime = 0;
+        try (SampleReader reader = SampleReader.open(file)) {
+            while (reader.next(mouseUpdate)) {
+                if (statistics.getSamples() == 0) firstTime = mouseUpdate.getTime();
+                lastTime = mouseUpdate.getTime();
+                statistics.handle(mouseUpdate);
+            }
+        }
+        return new Result(file, statistics, lastTime - firstTime);
+    }
+
+    private static class AnalyzeTask extends RecursiveTask<List<Result>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+
+        AnalyzeTask(List<Path> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected List<Result> compute() {
+            if (files.size() > 1) {
+                int half = files.size() / 2;
+                AnalyzeTask left = new AnalyzeTask(files.subList(0, half));
+                left.fork();
+                List<Result> results = new AnalyzeTask(files.subList(half, files.size())).compute();
+                results.addAll(left.join());
+                return results;
+            }
+            List<Result> results = new ArrayList<>();
+            for (Path file : files) {
+                try {
+                    Result result = analyze(file);
+                    if (result.getStatistics().getSamples() > 0) results.add(result);
+                } catch (IOException | RuntimeException e) {
+                    Log.warning("Skipping %s: %s".formatted(file, e.getMessage()));
+                }
+            }
+            return results;
+        }
+    }
+
+    private static void printTable(List<Result> results) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(COLUMNS);
+        for (Result result : results) rows.add(result.toRow());
+        int[] widths = new int[COLUMNS.length];
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) widths[i] = Math.max(widths[i], String.valueOf(row[i]).length());
+        }
+        for (Object[] row : rows) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                String cell = String.valueOf(row[i]);
+                // left align the file names, right align the numbers
+                if (i == 0) stringBuilder.append(cell).append(" ".repeat(widths[i] - cell.length()));
+                else stringBuilder.append("  ").append(" ".repeat(widths[i] - cell.length())).append(cell);
+            }
+            System.out.println(stringBuilder);
+        }
+    }
+
+    private static void writeCsv(List<Result> results, Path output) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output))) {
+            writer.println(String.join(",", COLUMNS));
+            for (Result result : results) {
+                writer.println(Stream.of(result.toRow()).map(String::valueOf).collect(Collectors.joining(",")));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// converts a binary capture file or a set of mapped capture segments into the csv layout of
+// the text stats log
+public class CaptureConverter {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: CaptureConverter <capture%s | first segment%s> [output.csv]"
+                    .formatted(CaptureFormat.FILE_EXTENSION, MappedCaptureRecorder.FILE_EXTENSION));
+            return;
+        }
+        Path input = Path.of(args[0]);
+        Path output = args.length > 1 ? Path.of(args[1]) : defaultOutput(input);
+        try {
+            long records = toCsv(input, output);
+            System.out.println("Converted %d records from %s to %s".formatted(records, input, output));
+        } catch (IOException e) {
+            System.out.println("Failed to convert %s: %s".formatted(input, e.getMessage()));
+        }
+    }
+
+    public static long toCsv(Path input, Path output) throws IOException {
+        MouseUpdate mouseUpdate = new MouseUpdate();
+        try (SampleReader reader = SampleReader.open(input);
+             CaptureWriter writer = new CaptureWriter(FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), new CsvEncoder(), true)) {
+            while (reader.next(mouseUpdate)) {
+                writer.write(mouseUpdate);
+            }
+            return reader.getRecords();
+        }
+    }
+
+    private static Path defaultOutput(Path input) {
+        String name = input.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        if (extension > 0) name = name.substring(0, extension);
+        return input.resolveSibling(name + ".csv");
+    }
+}
@@ -0,0 +1,73 @@
+package hamsterwheel.capture;
+
+import java.nio.ByteBuffer;
+
+import static hamsterwheel.capture.CaptureFormat.*;
+
+// delta encoder for the binary capture format, see CaptureFormat for the layout
+public class CaptureEncoder implements SampleEncoder {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 1024;
+
+    private final int dpi, pollrateDivisor, keyframeInterval;
+
+    private long lastTime, lastInterval;
+    private int lastX, lastY, lastButtons, lastDpi, lastPollingRate;
+    private int sinceKeyframe = -1;
+
+    public CaptureEncoder(int dpi, int pollrateDivisor, int keyframeInterval) {
+        this.dpi = dpi;
+        this.pollrateDivisor = pollrateDivisor;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    @Override
+    public void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        putVarLong(buffer, dpi);
+        putVarLong(buffer, pollrateDivisor);
+        putVarLong(buffer, keyframeInterval);
+        putVarLong(buffer, System.currentTimeMillis());
+    }
+
+    @Override
+    public void encode(ByteBuffer buffer, long time, long interval, int x, int y, int dpi, int pollingRate, int buttons) {
+        if (sinceKeyframe < 0 || sinceKeyframe >= keyframeInterval || time < lastTime) {
+            putVarLong(buffer, KIND_KEYFRAME);
+            putZigZag(buffer, time);
+            putZigZag(buffer, x);
+            putZigZag(buffer, y);
+            putVarLong(buffer, buttons);
+            putVarLong(buffer, dpi);
+            putVarLong(buffer, pollingRate);
+            lastInterval = 0;
+            sinceKeyframe = 0;
+        } else {
+            if (dpi != lastDpi || pollingRate != lastPollingRate) {
+                putVarLong(buffer, KIND_STATE);
+                putVarLong(buffer, dpi);
+                putVarLong(buffer, pollingRate);
+            }
+            boolean buttonsChanged = buttons != lastButtons;
+            long dt = time - lastTime;
+            putVarLong(buffer, (zigZag(dt - lastInterval) << KIND_BITS) | (buttonsChanged ? KIND_SAMPLE_BUTTONS : KIND_SAMPLE));
+            lastInterval = dt;
+            putZigZag(buffer, x - lastX);
+            putZigZag(buffer, y - lastY);
+            if (buttonsChanged) putVarLong(buffer, buttons);
+            sinceKeyframe++;
+        }
+        lastTime = time;
+        lastX = x;
+        lastY = y;
+        lastButtons = buttons;
+        lastDpi = dpi;
+        lastPollingRate = pollingRate;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return FILE_EXTENSION;
+    }
+}
@@ -0,0 +1,65 @@
+package hamsterwheel.capture;
+
+import java.nio.ByteBuffer;
+
+// Binary capture file layout, version 1:
+//
+// header:  magic "HWCF", version byte, then varints dpi, pollrate divisor, keyframe interval
+//          and the wall clock time the capture was started at in epoch millis
+// records: a varint whose low 2 bits are the record kind, for samples the remaining bits
+//          hold the zigzag encoded change of the interval to the previous record, so a
+//          steady polling rate costs 1-2 bytes for nanosecond timestamps
+//   SAMPLE          ddt | zigzag dx | zigzag dy
+//   SAMPLE_BUTTONS  ddt | zigzag dx | zigzag dy | buttons bitmask
+//   KEYFRAME        zigzag time | zigzag x | zigzag y | buttons | dpi | polling rate
+//   STATE           dpi | polling rate
+//
+// a keyframe is written for the first record and then every keyframe interval records, it
+// resets the interval to 0, so a file that has been appended to or cut short can always be
+// read again from a keyframe
+public final class CaptureFormat {
+
+    public static final int MAGIC = 0x48574346;
+    public static final byte VERSION = 1;
+    public static final String FILE_EXTENSION = ".hwc";
+
+    static final int KIND_SAMPLE = 0, KIND_SAMPLE_BUTTONS = 1, KIND_KEYFRAME = 2, KIND_STATE = 3;
+    static final int KIND_BITS = 2, KIND_MASK = 3;
+
+    private CaptureFormat() {
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint in capture file");
+    }
+
+    static void putZigZag(ByteBuffer buffer, long value) {
+        putVarLong(buffer, zigZag(value));
+    }
+
+    static long getZigZag(ByteBuffer buffer) {
+        return unZigZag(getVarLong(buffer));
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
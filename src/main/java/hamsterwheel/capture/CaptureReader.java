@@ -0,0 +1,142 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static hamsterwheel.capture.CaptureFormat.*;
+
+// streams a binary capture file record by record into a reused MouseUpdate, only a small
+// buffer is held in memory no matter how large the file is
+public class CaptureReader implements SampleReader {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private boolean endOfStream = false;
+
+    private int version, headerDpi, pollrateDivisor, keyframeInterval;
+    private long startMillis;
+
+    private long time, interval;
+    private int x, y, buttons, dpi, pollingRate;
+    private boolean hasSample = false, synced = false;
+    private long records = 0;
+
+    public CaptureReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.limit(0);
+        fill();
+        if (buffer.remaining() < 5 || buffer.getInt() != MAGIC) throw new IOException("Not a HamsterWheel capture file");
+        version = buffer.get();
+        if (version != VERSION) throw new IOException("Unsupported capture file version %d".formatted(version));
+        headerDpi = (int) getVarLong(buffer);
+        pollrateDivisor = (int) getVarLong(buffer);
+        keyframeInterval = (int) getVarLong(buffer);
+        startMillis = getVarLong(buffer);
+        dpi = headerDpi;
+    }
+
+    // reads the next sample into mouseUpdate, returns false at the end of the file, a record
+    // cut short at the end (e.g. after a crash) is treated as the end
+    @Override
+    public boolean next(MouseUpdate mouseUpdate) throws IOException {
+        while (true) {
+            fill();
+            if (!buffer.hasRemaining()) return false;
+            buffer.mark();
+            try {
+                if (readRecord()) {
+                    mouseUpdate.set(time, x, y, dpi, pollingRate, buttons);
+                    mouseUpdate.setHasPrevious(hasSample);
+                    hasSample = true;
+                    records++;
+                    return true;
+                }
+            } catch (BufferUnderflowException e) {
+                buffer.reset();
+                if (endOfStream) return false;
+                throw new IOException("Capture record larger than read buffer");
+            }
+        }
+    }
+
+    // returns false for records that only update state
+    private boolean readRecord() {
+        long head = getVarLong(buffer);
+        int kind = (int) (head & KIND_MASK);
+        switch (kind) {
+            case KIND_KEYFRAME -> {
+                time = getZigZag(buffer);
+                x = (int) getZigZag(buffer);
+                y = (int) getZigZag(buffer);
+                buttons = (int) getVarLong(buffer);
+                dpi = (int) getVarLong(buffer);
+                pollingRate = (int) getVarLong(buffer);
+                interval = 0;
+                synced = true;
+                return true;
+            }
+            case KIND_STATE -> {
+                dpi = (int) getVarLong(buffer);
+                pollingRate = (int) getVarLong(buffer);
+                return false;
+            }
+            default -> {
+                long ddt = unZigZag(head >>> KIND_BITS);
+                int dx = (int) getZigZag(buffer), dy = (int) getZigZag(buffer);
+                if (kind == KIND_SAMPLE_BUTTONS) buttons = (int) getVarLong(buffer);
+                if (!synced) throw new IllegalStateException("Capture file does not start with a keyframe");
+                interval += ddt;
+                time += interval;
+                x += dx;
+                y += dy;
+                return true;
+            }
+        }
+    }
+
+    private void fill() throws IOException {
+        if (endOfStream || buffer.remaining() >= SampleEncoder.MAX_RECORD_BYTES) return;
+        buffer.compact();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                endOfStream = true;
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getHeaderDpi() {
+        return headerDpi;
+    }
+
+    public int getPollrateDivisor() {
+        return pollrateDivisor;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    @Override
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
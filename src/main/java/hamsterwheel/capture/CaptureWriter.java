@@ -0,0 +1,45 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// streams samples into a channel through any SampleEncoder, for tools that write captures
+// outside of the stats log (the stats log itself goes through StatsWriter)
+public class CaptureWriter implements Closeable {
+
+    private final WritableByteChannel channel;
+    private final SampleEncoder encoder;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    public CaptureWriter(WritableByteChannel channel, SampleEncoder encoder, boolean writeHeader) {
+        this.channel = channel;
+        this.encoder = encoder;
+        if (writeHeader) encoder.writeHeader(buffer);
+    }
+
+    public void write(MouseUpdate mouseUpdate) throws IOException {
+        write(mouseUpdate.getTime(), mouseUpdate.getNanosSinceLastUpdate(), mouseUpdate.getX(), mouseUpdate.getY(),
+                mouseUpdate.getDpi(), mouseUpdate.getPollingRate(), mouseUpdate.getButtonsPressed());
+    }
+
+    public void write(long time, long interval, int x, int y, int dpi, int pollingRate, int buttons) throws IOException {
+        if (buffer.remaining() < SampleEncoder.MAX_RECORD_BYTES) flush();
+        encoder.encode(buffer, time, interval, x, y, dpi, pollingRate, buttons);
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,51 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.Kinematics;
+import hamsterwheel.core.MouseUpdate;
+
+import java.nio.ByteBuffer;
+
+// the text layout of the stats log: millis,x,y,dpi,pollingrate,[buttons] followed by the
+// velocity and acceleration of the Kinematics stage, which are worked out from the same samples
+public class CsvEncoder implements SampleEncoder {
+
+    public static final String HEADER = "millis,x,y,dpi,pollingrate,buttonspressed,"
+            + "velocity,velocityx,velocityy,acceleration,accelerationx,accelerationy";
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final Kinematics kinematics = new Kinematics();
+
+    @Override
+    public void writeHeader(ByteBuffer buffer) {
+        line.setLength(0);
+        line.append(HEADER).append('\n');
+        put(buffer);
+    }
+
+    @Override
+    public void encode(ByteBuffer buffer, long time, long interval, int x, int y, int dpi, int pollingRate, int buttons) {
+        line.setLength(0);
+        kinematics.update(time, x, y);
+        MouseUpdate.appendMillis(line, interval);
+        line.append(',').append(x)
+                .append(',').append(y)
+                .append(',').append(dpi)
+                .append(',').append(pollingRate)
+                .append(',');
+        MouseUpdate.appendButtons(line, buttons);
+        kinematics.appendTo(line).append('\n');
+        put(buffer);
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".log";
+    }
+
+    // lines are plain ascii, so chars can go into the buffer one by one without an encoder
+    private void put(ByteBuffer buffer) {
+        for (int i = 0; i < line.length(); i++) {
+            buffer.put((byte) line.charAt(i));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// reads the text stats log (millis,x,y,dpi,pollingrate,[buttons]) line by line, the csv only
+// has the interval to the previous sample, so timestamps are rebuilt by adding those up.
+// the kinematics columns after the buttons are ignored, they follow from the samples
+public class CsvSampleReader implements SampleReader {
+
+    private final BufferedReader reader;
+    private long time = 0, records = 0;
+
+    public CsvSampleReader(Path path) throws IOException {
+        reader = Files.newBufferedReader(path);
+    }
+
+    @Override
+    public boolean next(MouseUpdate mouseUpdate) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // skip headers, the stats log gets a new one every time logging is switched on
+            if (line.isEmpty() || !Character.isDigit(line.charAt(0))) continue;
+            String[] fields = line.split(",", 6);
+            if (fields.length < 6) continue;
+            time += (long) (Double.parseDouble(fields[0]) * 1000000);
+            mouseUpdate.set(time, Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), parseButtons(fields[5]));
+            mouseUpdate.setHasPrevious(records > 0);
+            records++;
+            return true;
+        }
+        return false;
+    }
+
+    // "[1, 3]" back into a bitmask
+    private static int parseButtons(String field) {
+        int buttons = 0, button = -1;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (Character.isDigit(c)) {
+                button = (button < 0 ? 0 : button * 10) + (c - '0');
+            } else if (button >= 0) {
+                buttons |= 1 << button;
+                button = -1;
+            }
+            if (c == ']') break;
+        }
+        return buttons;
+    }
+
+    @Override
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,86 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static hamsterwheel.capture.MappedCaptureRecorder.*;
+
+// reads back the segments written by MappedCaptureRecorder, starting at the given segment and
+// continuing with the following ones, every record up to the first one without a valid commit
+// word in each segment is returned, which recovers all complete records after a crash
+public class MappedCaptureReader implements SampleReader {
+
+    private final String basePath;
+    private int segmentIndex;
+    private ByteBuffer segment;
+    private int position;
+    private boolean hasSample = false;
+    private long records = 0;
+
+    public MappedCaptureReader(Path firstSegment) throws IOException {
+        String name = firstSegment.toString();
+        int dash = name.lastIndexOf('-');
+        if (!name.endsWith(FILE_EXTENSION) || dash < 0) throw new IOException("Not a capture segment file: %s".formatted(name));
+        basePath = name.substring(0, dash);
+        segmentIndex = Integer.parseInt(name.substring(dash + 1, name.length() - FILE_EXTENSION.length()));
+        if (!openSegment(segmentIndex)) throw new IOException("Not a HamsterWheel capture segment: %s".formatted(name));
+    }
+
+    @Override
+    public boolean next(MouseUpdate mouseUpdate) throws IOException {
+        while (segment != null) {
+            if (position + RECORD_SIZE <= segment.limit()) {
+                long time = segment.getLong(position + RECORD_TIME);
+                int x = segment.getInt(position + RECORD_X), y = segment.getInt(position + RECORD_Y),
+                        buttons = segment.getInt(position + RECORD_BUTTONS), dpi = segment.getInt(position + RECORD_DPI),
+                        pollingRate = segment.getInt(position + RECORD_POLLING_RATE);
+                if (segment.getInt(position + RECORD_COMMIT) == commitWord(time, x, y, buttons, dpi, pollingRate)) {
+                    position += RECORD_SIZE;
+                    mouseUpdate.set(time, x, y, dpi, pollingRate, buttons);
+                    mouseUpdate.setHasPrevious(hasSample);
+                    hasSample = true;
+                    records++;
+                    return true;
+                }
+            }
+            // end of the committed records in this segment, carry on with the next one
+            if (!openSegment(segmentIndex + 1)) segment = null;
+        }
+        return false;
+    }
+
+    @Override
+    public long getRecords() {
+        return records;
+    }
+
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    private boolean openSegment(int index) throws IOException {
+        Path path = segmentPath(basePath, index);
+        if (!Files.exists(path)) return false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(HEADER_MAGIC) != MAGIC || buffer.getInt(HEADER_VERSION) != VERSION
+                    || buffer.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) return false;
+            segment = buffer;
+            segmentIndex = index;
+            position = HEADER_SIZE;
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+    }
+}
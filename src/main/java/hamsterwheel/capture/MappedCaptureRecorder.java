@@ -0,0 +1,208 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.jfr.Events;
+import hamsterwheel.jfr.StatsFlushEvent;
+import hamsterwheel.util.Log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+// Records samples straight into memory mapped, pre-allocated segment files. Writing a sample
+// is a handful of stores into the mapping, no syscall, and whatever has been stored is in the
+// page cache, so it survives the JVM dying. A background thread forces the mapping to disk
+// once a second for machine crashes and maps the next segment before the current one fills.
+// The sampling thread never waits for the file system: a full segment is forced by the
+// flusher, and while no next segment is mapped the samples are dropped and counted.
+//
+// segment layout, little endian:
+//   header  64 bytes: magic "HWMS", version, record size, dpi, pollrate divisor,
+//           segment index, start time in epoch millis (long)
+//   records 32 bytes each: time (long), x, y, buttons, dpi, polling rate, commit word
+// the commit word is written last and is COMMIT_MAGIC mixed with the record's fields, a reader
+// accepts records up to the first one whose commit word doesn't match
+public class MappedCaptureRecorder {
+
+    public static final String FILE_EXTENSION = ".hwm";
+    public static final int MAGIC = 0x48574D53;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64, RECORD_SIZE = 32;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final int COMMIT_MAGIC = 0x5EC0FFEE;
+    static final int HEADER_MAGIC = 0, HEADER_VERSION = 4, HEADER_RECORD_SIZE = 8, HEADER_DPI = 12,
+            HEADER_POLLRATE_DIVISOR = 16, HEADER_SEGMENT_INDEX = 20, HEADER_START_MILLIS = 24;
+    static final int RECORD_TIME = 0, RECORD_X = 8, RECORD_Y = 12, RECORD_BUTTONS = 16, RECORD_DPI = 20,
+            RECORD_POLLING_RATE = 24, RECORD_COMMIT = 28;
+
+    private static final long FORCE_INTERVAL_NANOS = 1_000_000_000;
+
+    private final String basePath;
+    private final int segmentSize, dpi, pollrateDivisor;
+    private final Thread flusherThread;
+
+    private volatile MappedByteBuffer segment;
+    private volatile int segmentIndex = 0;
+    private int position, nextSegmentIndex;
+    private volatile MappedByteBuffer nextSegment;
+    // the full segment the flusher still has to force
+    private volatile MappedByteBuffer retiredSegment;
+    private volatile boolean running = true, failed = false;
+    private volatile long records = 0, dropped = 0;
+    // drops the flusher has already logged
+    private long reportedDropped = 0;
+    // records up to the last force of the flusher thread
+    private long forcedRecords = 0;
+
+    // segments are written to basePath-0001.hwm, basePath-0002.hwm and so on
+    public MappedCaptureRecorder(String basePath, int segmentSize, int dpi, int pollrateDivisor) throws IOException {
+        this.basePath = basePath;
+        this.segmentSize = segmentSize - (segmentSize - HEADER_SIZE) % RECORD_SIZE;
+        this.dpi = dpi;
+        this.pollrateDivisor = pollrateDivisor;
+        segment = mapSegment(++segmentIndex);
+        position = HEADER_SIZE;
+
+        flusherThread = new Thread(this::runFlusher, "CaptureFlusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    public static Path segmentPath(String basePath, int segmentIndex) {
+        return Path.of("%s-%04d%s".formatted(basePath, segmentIndex, FILE_EXTENSION));
+    }
+
+    // called from the sampling thread
+    public void record(MouseUpdate mouseUpdate) {
+        if (position + RECORD_SIZE > segmentSize && !roll()) {
+            dropped++;
+            return;
+        }
+        MappedByteBuffer buffer = segment;
+        int p = position;
+        long time = mouseUpdate.getTime();
+        int x = mouseUpdate.getX(), y = mouseUpdate.getY(), buttons = mouseUpdate.getButtonsPressed(),
+                dpi = mouseUpdate.getDpi(), pollingRate = mouseUpdate.getPollingRate();
+        buffer.putLong(p + RECORD_TIME, time);
+        buffer.putInt(p + RECORD_X, x);
+        buffer.putInt(p + RECORD_Y, y);
+        buffer.putInt(p + RECORD_BUTTONS, buttons);
+        buffer.putInt(p + RECORD_DPI, dpi);
+        buffer.putInt(p + RECORD_POLLING_RATE, pollingRate);
+        buffer.putInt(p + RECORD_COMMIT, commitWord(time, x, y, buttons, dpi, pollingRate));
+        position = p + RECORD_SIZE;
+        records++;
+    }
+
+    static int commitWord(long time, int x, int y, int buttons, int dpi, int pollingRate) {
+        int hash = Long.hashCode(time);
+        hash = 31 * hash + x;
+        hash = 31 * hash + y;
+        hash = 31 * hash + buttons;
+        hash = 31 * hash + dpi;
+        hash = 31 * hash + pollingRate;
+        return COMMIT_MAGIC ^ hash;
+    }
+
+    // forces everything to disk and stops the flusher thread
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusherThread);
+        try {
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        MappedByteBuffer retired = retiredSegment;
+        if (retired != null) retired.force();
+        segment.force();
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    // samples that came while the current segment was full and the next one wasn't mapped yet
+    public long getDropped() {
+        return dropped;
+    }
+
+    // switches to the segment the flusher mapped ahead and leaves the full one to the flusher to
+    // force. false when there is none yet, the flusher is woken up to map it unless mapping failed
+    private boolean roll() {
+        MappedByteBuffer next = nextSegment;
+        if (next == null || nextSegmentIndex != segmentIndex + 1) {
+            if (!failed) LockSupport.unpark(flusherThread);
+            return false;
+        }
+        nextSegment = null;
+        retiredSegment = segment;
+        segment = next;
+        segmentIndex++;
+        position = HEADER_SIZE;
+        LockSupport.unpark(flusherThread);
+        return true;
+    }
+
+    private MappedByteBuffer mapSegment(int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(basePath, index).toFile(), "rw")) {
+            file.setLength(segmentSize);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(HEADER_VERSION, VERSION);
+            buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+            buffer.putInt(HEADER_DPI, dpi);
+            buffer.putInt(HEADER_POLLRATE_DIVISOR, pollrateDivisor);
+            buffer.putInt(HEADER_SEGMENT_INDEX, index);
+            buffer.putLong(HEADER_START_MILLIS, System.currentTimeMillis());
+            buffer.putInt(HEADER_MAGIC, MAGIC);
+            return buffer;
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            LockSupport.parkNanos(FORCE_INTERVAL_NANOS);
+            // the event class isn't loaded while no flight recording runs
+            StatsFlushEvent event = Events.isActive() ? StatsFlushEvent.start() : null;
+            long recordsNow = records;
+            MappedByteBuffer retired = retiredSegment;
+            if (retired != null) {
+                retiredSegment = null;
+                retired.force();
+            }
+            segment.force();
+            if (event != null) event.finish("MappedCaptureRecorder", recordsNow - forcedRecords, (recordsNow - forcedRecords) * RECORD_SIZE);
+            forcedRecords = recordsNow;
+            // map the next segment once the current one is half full, so rolling over doesn't
+            // have to wait for the file system
+            if (nextSegment == null && !failed && running && position > segmentSize / 2) {
+                try {
+                    int index = segmentIndex + 1;
+                    MappedByteBuffer buffer = mapSegment(index);
+                    nextSegmentIndex = index;
+                    nextSegment = buffer;
+                } catch (IOException e) {
+                    // no retry, the samples after the current segment are dropped
+                    failed = true;
+                    Log.error("Failed to map capture segment %d, capture recording stopped: %s"
+                            .formatted(segmentIndex + 1, e.getMessage()));
+                }
+            }
+            long droppedNow = dropped;
+            if (droppedNow != reportedDropped && !failed) {
+                Log.warning("Capture segment %d was full, %d samples dropped".formatted(segmentIndex, droppedNow - reportedDropped));
+            }
+            reportedDropped = droppedNow;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package hamsterwheel.capture;
+
+import java.nio.ByteBuffer;
+
+// turns samples into bytes for the stats log, implementations keep whatever state they
+// need between records and must not allocate per record
+public interface SampleEncoder {
+
+    // no single record may take more than this many bytes
+    int MAX_RECORD_BYTES = 128;
+
+    // only written when the file is new, appending to an existing file skips it
+    void writeHeader(ByteBuffer buffer);
+
+    void encode(ByteBuffer buffer, long time, long interval, int x, int y, int dpi, int pollingRate, int buttons);
+
+    String getFileExtension();
+}
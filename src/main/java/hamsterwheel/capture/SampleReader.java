@@ -0,0 +1,28 @@
+package hamsterwheel.capture;
+
+import hamsterwheel.core.MouseUpdate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// common interface of the recorded session readers, samples are streamed one at a time
+// into a MouseUpdate owned by the caller
+public interface SampleReader extends Closeable {
+
+    // returns false when there are no more samples
+    boolean next(MouseUpdate mouseUpdate) throws IOException;
+
+    long getRecords();
+
+    // picks the reader by file extension, anything that isn't a binary capture or a mapped
+    // segment is read as a csv stats log
+    static SampleReader open(Path path) throws IOException {
+        String name = path.toString();
+        if (name.endsWith(MappedCaptureRecorder.FILE_EXTENSION)) return new MappedCaptureReader(path);
+        if (name.endsWith(CaptureFormat.FILE_EXTENSION)) return new CaptureReader(FileChannel.open(path, StandardOpenOption.READ));
+        return new CsvSampleReader(path);
+    }
+}
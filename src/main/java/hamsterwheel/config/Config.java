@@ -1,14 +1,21 @@
 package hamsterwheel.config;
 
+import hamsterwheel.core.SamplingScheduler;
 import hamsterwheel.util.Log;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 public class Config {
-    private boolean fullScreen, darkMode, drawTrail,
+
+    public static final int LOG_FORMAT_CSV = 0, LOG_FORMAT_BINARY = 1, LOG_FORMAT_MAPPED = 2;
+    public static final String[] LOG_FORMAT_NAMES = {"csv", "binary", "mapped"};
+
+    private boolean fullScreen, darkMode, drawTrail, fadeTrail,
             drawCoordinates, drawInchGrid, drawPixelGrid, drawRGB, enableStatisticsLogging,
-            showTitlePanel, showStatsPanel, showSettingsPanel, showDebugPanel, showPollingPanel;
-    private int maxFPS, UIMultiplier, pollrateDivisor, dpi;
+            showTitlePanel, showStatsPanel, showSettingsPanel, showDebugPanel, showPollingPanel, showIntervalPanel, showCalibrationPanel, showHealthPanel, activeRendering;
+    private int maxFPS, UIMultiplier, pollrateDivisor, dpi, statisticsLogFormat, samplingStrategy, samplingRate,
+            calibrationDistance;
 
     public Config() {
         init();
@@ -23,6 +30,8 @@ public class Config {
             value = line.split("=")[1];
             try {
                 Field field = Config.class.getDeclaredField(key);
+                // constants are not settings, older config files may still have them
+                if (Modifier.isStatic(field.getModifiers())) continue;
                 switch (Config.class.getDeclaredField(key).getType().getTypeName()) {
                     case "boolean" -> field.set(config, Boolean.parseBoolean(value));
                     case "String" -> field.set(config, value);
@@ -32,6 +41,16 @@ public class Config {
                 Log.error(e.getMessage());
             }
         }
+        // both index name arrays, a hand edited value would break the settings panel
+        if (config.statisticsLogFormat < 0 || config.statisticsLogFormat >= LOG_FORMAT_NAMES.length) {
+            Log.warning("Invalid statisticsLogFormat %d in config, using %s".formatted(config.statisticsLogFormat, LOG_FORMAT_NAMES[LOG_FORMAT_CSV]));
+            config.statisticsLogFormat = LOG_FORMAT_CSV;
+        }
+        if (config.samplingStrategy < 0 || config.samplingStrategy >= SamplingScheduler.STRATEGY_NAMES.length) {
+            Log.warning("Invalid samplingStrategy %d in config, using %s".formatted(config.samplingStrategy,
+                    SamplingScheduler.STRATEGY_NAMES[SamplingScheduler.STRATEGY_SPIN]));
+            config.samplingStrategy = SamplingScheduler.STRATEGY_SPIN;
+        }
         return config;
     }
 
@@ -40,6 +59,7 @@ public class Config {
         try {
             StringBuilder stringBuilder = new StringBuilder();
             for (Field field : this.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
                 stringBuilder.append(field.getName() + "=" + field.get(this) + "\n");
             }
             return stringBuilder.toString();
@@ -54,17 +74,26 @@ public class Config {
         darkMode = true;
         maxFPS = 120;
         drawTrail = false;
+        fadeTrail = false;
         drawCoordinates = false;
         drawInchGrid = false;
         drawPixelGrid = false;
         pollrateDivisor = 1;
         dpi = 1600;
         enableStatisticsLogging = false;
+        statisticsLogFormat = LOG_FORMAT_CSV;
+        samplingStrategy = SamplingScheduler.STRATEGY_SPIN;
+        samplingRate = 8000;
+        calibrationDistance = 100;
         showTitlePanel = true;
         showStatsPanel = true;
         showSettingsPanel = true;
         showDebugPanel = false;
         showPollingPanel = false;
+        showIntervalPanel = false;
+        showCalibrationPanel = false;
+        showHealthPanel = false;
+        activeRendering = false;
         drawRGB = false;
     }
 
@@ -92,6 +121,14 @@ public class Config {
         this.drawTrail = drawTrail;
     }
 
+    public boolean isFadeTrail() {
+        return fadeTrail;
+    }
+
+    public void setFadeTrail(boolean fadeTrail) {
+        this.fadeTrail = fadeTrail;
+    }
+
     public boolean isDrawCoordinates() {
         return drawCoordinates;
     }
@@ -156,6 +193,38 @@ public class Config {
         this.showPollingPanel = showPollingPanel;
     }
 
+    public boolean isShowIntervalPanel() {
+        return showIntervalPanel;
+    }
+
+    public void setShowIntervalPanel(boolean showIntervalPanel) {
+        this.showIntervalPanel = showIntervalPanel;
+    }
+
+    public boolean isShowCalibrationPanel() {
+        return showCalibrationPanel;
+    }
+
+    public void setShowCalibrationPanel(boolean showCalibrationPanel) {
+        this.showCalibrationPanel = showCalibrationPanel;
+    }
+
+    public boolean isShowHealthPanel() {
+        return showHealthPanel;
+    }
+
+    public void setShowHealthPanel(boolean showHealthPanel) {
+        this.showHealthPanel = showHealthPanel;
+    }
+
+    public boolean isActiveRendering() {
+        return activeRendering;
+    }
+
+    public void setActiveRendering(boolean activeRendering) {
+        this.activeRendering = activeRendering;
+    }
+
     public boolean isDrawRGB() {
         return drawRGB;
     }
@@ -204,4 +273,37 @@ public class Config {
         this.enableStatisticsLogging = enableStatisticsLogging;
     }
 
+    public int getStatisticsLogFormat() {
+        return statisticsLogFormat;
+    }
+
+    public void setStatisticsLogFormat(int statisticsLogFormat) {
+        this.statisticsLogFormat = statisticsLogFormat;
+    }
+
+    public int getSamplingStrategy() {
+        return samplingStrategy;
+    }
+
+    public void setSamplingStrategy(int samplingStrategy) {
+        this.samplingStrategy = samplingStrategy;
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(int samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    // millimeters, the length of one pass in DPI calibration
+    public int getCalibrationDistance() {
+        return calibrationDistance;
+    }
+
+    public void setCalibrationDistance(int calibrationDistance) {
+        this.calibrationDistance = calibrationDistance;
+    }
+
 }
@@ -0,0 +1,97 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.jfr.Events;
+import hamsterwheel.jfr.SampleEvent;
+
+import java.util.function.Consumer;
+
+// what every input source shares: its own thread, button state, click timing, pausing and
+// handing samples to the consumer with the pollrate divisor applied
+public abstract class AbstractInputSource extends Thread implements InputSource {
+
+    protected final Consumer<MouseUpdate> positionConsumer;
+    protected final Config config;
+    protected final ClickTimer clickTimer = new ClickTimer();
+
+    // bit n is set while mouse button n is held down
+    protected volatile int buttonsPressed = 0;
+    protected volatile boolean paused = false;
+    private int pollSkipping = 1;
+
+    protected AbstractInputSource(String name, Consumer<MouseUpdate> positionConsumer, Config config) {
+        super(name);
+        this.positionConsumer = positionConsumer;
+        this.config = config;
+    }
+
+    // passes on every pollrateDivisor-th sample, returns true if this one was passed on
+    protected boolean publish(MouseUpdate mouseUpdate) {
+        if (pollSkipping < config.getPollrateDivisor()) {
+            pollSkipping++;
+            return false;
+        }
+        deliver(mouseUpdate);
+        pollSkipping = 1;
+        return true;
+    }
+
+    // hands the sample to the consumer without the pollrate divisor, for sources like replay
+    // that pass on every sample
+    protected void deliver(MouseUpdate mouseUpdate) {
+        if (Events.isActive()) SampleEvent.emit(mouseUpdate);
+        positionConsumer.accept(mouseUpdate);
+    }
+
+    // blocks while paused, returns false if interrupted
+    protected boolean awaitUnpaused() {
+        while (paused) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getSourceName() {
+        return getName();
+    }
+
+    @Override
+    public void shutdown() {
+        interrupt();
+    }
+
+    @Override
+    public int getButtonsPressed() {
+        return buttonsPressed;
+    }
+
+    @Override
+    public float getRelativeClickLatency() {
+        return clickTimer.getRelativeClickLatency();
+    }
+
+    @Override
+    public float getClickInterval() {
+        return clickTimer.getClickInterval();
+    }
+
+    @Override
+    public float getClickDuration() {
+        return clickTimer.getClickDuration();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+}
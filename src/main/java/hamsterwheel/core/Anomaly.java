@@ -0,0 +1,77 @@
+package hamsterwheel.core;
+
+// one event of the AnomalyDetector. like MouseUpdate the detector reuses a single instance,
+// listeners that want to keep an event have to copy the values or call toString()
+public class Anomaly {
+
+    public static final int DROPPED_REPORT = 0, DUPLICATE_TIMESTAMP = 1, POSITION_JUMP = 2, STATIONARY_JITTER = 3,
+            ANGLE_SNAPPING = 4;
+    public static final String[] TYPE_NAMES = {"dropped report", "duplicate timestamp", "position jump",
+            "stationary jitter", "angle snapping"};
+    public static final int TYPE_COUNT = TYPE_NAMES.length;
+
+    private int type;
+    private long time, start;
+    private int x, y;
+    private double value;
+    private long suppressed;
+
+    void set(int type, long time, long start, int x, int y, double value, long suppressed) {
+        this.type = type;
+        this.time = time;
+        this.start = start;
+        this.x = x;
+        this.y = y;
+        this.value = value;
+        this.suppressed = suppressed;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    // timestamp of the sample that showed the anomaly
+    public long getTime() {
+        return time;
+    }
+
+    // from the first sample the detector saw
+    public double getSecondsSinceStart() {
+        return (time - start) / 1e9;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    // what the value means depends on the type, see describe()
+    public double getValue() {
+        return value;
+    }
+
+    // events of the same type that were counted but not reported since the last one
+    public long getSuppressed() {
+        return suppressed;
+    }
+
+    public String describe() {
+        return switch (type) {
+            case DROPPED_REPORT -> "%.0f missing".formatted(value);
+            case DUPLICATE_TIMESTAMP -> "%.0f ns apart".formatted(value);
+            case POSITION_JUMP -> "%.0f px off the predicted position".formatted(value);
+            case STATIONARY_JITTER -> "%.0f px of movement at rest".formatted(value);
+            case ANGLE_SNAPPING -> "%.0f px stroke on one axis".formatted(value);
+            default -> "%.2f".formatted(value);
+        };
+    }
+
+    @Override
+    public String toString() {
+        String line = "anomaly: %s at %.3f s, %d/%d, %s".formatted(TYPE_NAMES[type], getSecondsSinceStart(), x, y, describe());
+        return suppressed > 0 ? line + " (%d more not shown)".formatted(suppressed) : line;
+    }
+}
@@ -0,0 +1,213 @@
+package hamsterwheel.core;
+
+import java.util.function.Consumer;
+
+// watches the sample stream for sensor and transport problems: reports that went missing,
+// samples with the same timestamp, positions that don't follow from the recent velocity,
+// movement while the mouse is at rest and strokes that never leave one axis. all state is
+// fixed size and nothing is allocated per sample, so it can stay on for long soak tests.
+// every event is counted, but at most MAX_EVENTS_PER_SECOND of each type are passed on
+public class AnomalyDetector implements Consumer<MouseUpdate> {
+
+    // an interval this many times the expected one means reports went missing
+    private static final double DROP_FACTOR = 1.8;
+    // this many long intervals in a row are a lower polling rate and not drops
+    private static final int RATE_CHANGE_SAMPLES = 8;
+    // weight of a new interval in the expected interval
+    private static final double INTERVAL_SMOOTHING = 1 / 64.0;
+    // a sample is a jump when it is further than JUMP_MIN_PX + JUMP_FACTOR * the predicted
+    // step from where the recent velocity puts it
+    private static final int JUMP_MIN_PX = 25;
+    private static final double JUMP_FACTOR = 3;
+    // jitter: the last JITTER_WINDOW steps add up to at least JITTER_MIN_PATH px but all stay in a
+    // box of JITTER_MAX_SPREAD px, which no deliberate movement does
+    private static final int JITTER_WINDOW = 16, JITTER_MIN_PATH = 6, JITTER_MAX_SPREAD = 2;
+    // nobody moves this far by hand without a single count on the other axis
+    private static final int SNAP_MIN_STROKE = 200;
+    private static final int MAX_EVENTS_PER_SECOND = 5;
+    private static final long EVENT_WINDOW_NANOS = 1_000_000_000;
+
+    private final Consumer<Anomaly> listener;
+    private final Anomaly anomaly = new Anomaly();
+    private final Kinematics kinematics = new Kinematics();
+
+    private final long[] counts = new long[Anomaly.TYPE_COUNT], suppressed = new long[Anomaly.TYPE_COUNT],
+            eventWindowStarts = new long[Anomaly.TYPE_COUNT];
+    private final int[] eventsInWindow = new int[Anomaly.TYPE_COUNT];
+
+    private boolean started = false;
+    private long start;
+    private double expectedInterval = 0;
+    private int longIntervals = 0;
+
+    // last JITTER_WINDOW steps: their length and where they started
+    private final int[] stepLengths = new int[JITTER_WINDOW], stepXs = new int[JITTER_WINDOW], stepYs = new int[JITTER_WINDOW];
+    private long steps = 0;
+    private int stepPath = 0, jitterCooldown = 0;
+
+    // a jump usually comes back on the next sample, which is not another jump
+    private boolean afterJump = false;
+    // length of the current stroke on each axis, with its direction
+    private int runX = 0, runY = 0, runDirectionX = 0, runDirectionY = 0;
+    private volatile boolean resetRequested = false;
+
+    // the listener is called on the thread that feeds the detector
+    public AnomalyDetector(Consumer<Anomaly> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void accept(MouseUpdate mouseUpdate) {
+        if (resetRequested) clear();
+        long time = mouseUpdate.getTime();
+        if (!started) {
+            start = time;
+            started = true;
+        }
+        if (mouseUpdate.hasPrevious()) {
+            long interval = mouseUpdate.getNanosSinceLastUpdate();
+            int dx = mouseUpdate.getX() - mouseUpdate.getPreviousX(), dy = mouseUpdate.getY() - mouseUpdate.getPreviousY();
+            boolean moving = interval > 0 && interval < Kinematics.IDLE_GAP_NANOS;
+            if (interval <= 0) report(Anomaly.DUPLICATE_TIMESTAMP, mouseUpdate, -interval);
+            else if (moving) checkInterval(mouseUpdate, interval, dx, dy);
+            else runX = runY = 0;
+            if (!moving) afterJump = false;
+            if (dx != 0 || dy != 0) {
+                if (moving) checkJump(mouseUpdate, interval, dx, dy);
+                checkJitter(mouseUpdate, dx, dy);
+                checkSnapping(mouseUpdate, dx, dy);
+            }
+        }
+        kinematics.update(mouseUpdate);
+    }
+
+    // counts start over with the next sample, safe to call from any thread
+    public void reset() {
+        resetRequested = true;
+    }
+
+    public long getCount(int type) {
+        return counts[type];
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+
+    // "dropped report 3, duplicate timestamp 0, ..."
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (int type = 0; type < Anomaly.TYPE_COUNT; type++) {
+            if (type > 0) summary.append(", ");
+            summary.append(Anomaly.TYPE_NAMES[type]).append(' ').append(counts[type]);
+        }
+        return summary.toString();
+    }
+
+    private void checkInterval(MouseUpdate mouseUpdate, long interval, int dx, int dy) {
+        if (expectedInterval == 0) {
+            expectedInterval = interval;
+            return;
+        }
+        if (interval < expectedInterval * DROP_FACTOR) {
+            longIntervals = 0;
+            expectedInterval += (interval - expectedInterval) * INTERVAL_SMOOTHING;
+            return;
+        }
+        if (++longIntervals >= RATE_CHANGE_SAMPLES) {
+            expectedInterval = interval;
+            longIntervals = 0;
+            return;
+        }
+        long missing = Math.round(interval / expectedInterval) - 1;
+        // a mouse with nothing to report stays quiet, so only gaps it had to move through count
+        if (Math.abs(dx) + Math.abs(dy) > missing) report(Anomaly.DROPPED_REPORT, mouseUpdate, missing);
+    }
+
+    private void checkJump(MouseUpdate mouseUpdate, long interval, int dx, int dy) {
+        if (afterJump) {
+            afterJump = false;
+            return;
+        }
+        double predictedX = kinematics.getVelocityX() * interval / 1e9, predictedY = kinematics.getVelocityY() * interval / 1e9;
+        double errorX = dx - predictedX, errorY = dy - predictedY;
+        double error = Math.sqrt(errorX * errorX + errorY * errorY);
+        double predicted = Math.sqrt(predictedX * predictedX + predictedY * predictedY);
+        if (error > JUMP_MIN_PX + JUMP_FACTOR * predicted) {
+            report(Anomaly.POSITION_JUMP, mouseUpdate, error);
+            afterJump = true;
+        }
+    }
+
+    private void checkJitter(MouseUpdate mouseUpdate, int dx, int dy) {
+        int slot = (int) (steps % JITTER_WINDOW);
+        if (steps >= JITTER_WINDOW) stepPath -= stepLengths[slot];
+        int length = Math.abs(dx) + Math.abs(dy);
+        stepLengths[slot] = length;
+        stepXs[slot] = mouseUpdate.getPreviousX();
+        stepYs[slot] = mouseUpdate.getPreviousY();
+        stepPath += length;
+        steps++;
+
+        if (jitterCooldown > 0) {
+            jitterCooldown--;
+            return;
+        }
+        if (steps < JITTER_WINDOW || stepPath < JITTER_MIN_PATH) return;
+        // a fixed number of steps, so the scan costs the same for every sample
+        int x = mouseUpdate.getX(), y = mouseUpdate.getY();
+        int minX = x, maxX = x, minY = y, maxY = y;
+        for (int i = 0; i < JITTER_WINDOW; i++) {
+            minX = Math.min(minX, stepXs[i]);
+            maxX = Math.max(maxX, stepXs[i]);
+            minY = Math.min(minY, stepYs[i]);
+            maxY = Math.max(maxY, stepYs[i]);
+        }
+        if (maxX - minX <= JITTER_MAX_SPREAD && maxY - minY <= JITTER_MAX_SPREAD) {
+            report(Anomaly.STATIONARY_JITTER, mouseUpdate, stepPath);
+            // the same steps are not reported again
+            jitterCooldown = JITTER_WINDOW;
+        }
+    }
+
+    private void checkSnapping(MouseUpdate mouseUpdate, int dx, int dy) {
+        // turning around starts a new stroke
+        if (Integer.signum(dx) != runDirectionX) runX = 0;
+        if (Integer.signum(dy) != runDirectionY) runY = 0;
+        runDirectionX = Integer.signum(dx);
+        runDirectionY = Integer.signum(dy);
+        runX = dy == 0 ? runX + Math.abs(dx) : 0;
+        runY = dx == 0 ? runY + Math.abs(dy) : 0;
+        // once per stroke, when it gets long enough
+        if (runX >= SNAP_MIN_STROKE && runX - Math.abs(dx) < SNAP_MIN_STROKE) report(Anomaly.ANGLE_SNAPPING, mouseUpdate, runX);
+        if (runY >= SNAP_MIN_STROKE && runY - Math.abs(dy) < SNAP_MIN_STROKE) report(Anomaly.ANGLE_SNAPPING, mouseUpdate, runY);
+    }
+
+    private void report(int type, MouseUpdate mouseUpdate, double value) {
+        counts[type]++;
+        long time = mouseUpdate.getTime();
+        if (time - eventWindowStarts[type] >= EVENT_WINDOW_NANOS) {
+            eventWindowStarts[type] = time;
+            eventsInWindow[type] = 0;
+        }
+        if (eventsInWindow[type] >= MAX_EVENTS_PER_SECOND) {
+            suppressed[type]++;
+            return;
+        }
+        eventsInWindow[type]++;
+        anomaly.set(type, time, start, mouseUpdate.getX(), mouseUpdate.getY(), value, suppressed[type]);
+        suppressed[type] = 0;
+        listener.accept(anomaly);
+    }
+
+    private void clear() {
+        resetRequested = false;
+        for (int type = 0; type < Anomaly.TYPE_COUNT; type++) {
+            counts[type] = 0;
+            suppressed[type] = 0;
+            eventsInWindow[type] = 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package hamsterwheel.core;
+
+// tracks left/right button press and release times to measure relative click latency,
+// click duration and the interval between clicks
+public class ClickTimer {
+
+    public static final int LEFT_BUTTON = 1, RIGHT_BUTTON = 3;
+
+    private long lastRightClickPressed, lastLeftClickPressed, lastLeftClickReleased;
+    private float lastClickDuration, lastClickInterval;
+
+    public void pressed(int button, long nanos) {
+        if (button == LEFT_BUTTON) lastLeftClickPressed = nanos;
+        else if (button == RIGHT_BUTTON) lastRightClickPressed = nanos;
+
+        if (lastLeftClickPressed == 0 || lastLeftClickReleased == 0) this.lastClickInterval = 0;
+        else this.lastClickInterval = (this.lastLeftClickPressed - this.lastLeftClickReleased) / 1000000f;
+    }
+
+    public void released(int button, long nanos) {
+        if (button == LEFT_BUTTON) lastLeftClickReleased = nanos;
+        if (lastLeftClickPressed == 0 || lastLeftClickReleased == 0) this.lastClickDuration = 0;
+        else this.lastClickDuration = (this.lastLeftClickReleased - this.lastLeftClickPressed) / 1000000f;
+    }
+
+    // feeds the press/release events implied by a change in the button bitmask
+    public void buttonsChanged(int previousButtons, int buttons, long nanos) {
+        int changed = previousButtons ^ buttons;
+        for (int button = 0; changed != 0 && button < 32; button++) {
+            int bit = 1 << button;
+            if ((changed & bit) == 0) continue;
+            if ((buttons & bit) != 0) pressed(button, nanos);
+            else released(button, nanos);
+            changed &= ~bit;
+        }
+    }
+
+    public float getRelativeClickLatency() {
+        float latency = (this.lastRightClickPressed - this.lastLeftClickPressed) / 1000000f;
+        if (latency > 1000 || latency < -1000) return 0;
+        else return latency;
+    }
+
+    public float getClickInterval() {
+        return this.lastClickInterval;
+    }
+
+    public float getClickDuration() {
+        return this.lastClickDuration;
+    }
+}
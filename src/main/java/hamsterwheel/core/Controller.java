@@ -1,11 +1,21 @@
 package hamsterwheel.core;
 
+import hamsterwheel.analysis.BatchAnalyzer;
+import hamsterwheel.capture.CaptureConverter;
 import hamsterwheel.config.Config;
 import hamsterwheel.util.ConfigIO;
+import hamsterwheel.util.JvmMetrics;
 import hamsterwheel.gui.MainFrame;
+import hamsterwheel.gui.RenderHarness;
+import hamsterwheel.jfr.Events;
 import hamsterwheel.util.Log;
+import hamsterwheel.util.Scheduler;
 
+import java.awt.*;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 public class Controller {
 
@@ -13,9 +23,20 @@ public class Controller {
 
     private static Config config;
     private static MainFrame gui;
-    private static MouseLocator mouseLocator;
+    private static InputSource inputSource;
+    private static SampleDispatcher dispatcher;
+    private static AnomalyDetector anomalyDetector;
+    private static SessionStatistics headlessStatistics;
+    private static final JvmMetrics jvmMetrics = new JvmMetrics();
+    private static final Scheduler.Group tasks = new Scheduler.Group("Controller");
 
     private static String configFilePath = "config.cfg";
+    private static String replayFilePath = null;
+    private static boolean replayRealTime = true;
+    private static String evdevPath = null;
+    private static String syntheticSpec = null;
+    private static String jfrPath = null;
+    private static boolean headless = false;
 
     public static void main(String[] args) {
 
@@ -37,6 +58,42 @@ public class Controller {
             } else if(args[i].equals("-s") || args[i].equals("-stats")) {
                 // specify stat log file path
                 //TODO delete config file
+            } else if((args[i].equals("-r") || args[i].equals("-replay")) && i + 1 < args.length) {
+                // replay a recorded capture instead of reading the mouse
+                replayFilePath = args[++i];
+            } else if(args[i].equals("-evdev") && i + 1 < args.length) {
+                // read kernel input events from /dev/input/event* instead of polling the cursor
+                evdevPath = args[++i];
+            } else if(args[i].equals("-synthetic")) {
+                // generate samples instead of reading a mouse, optionally followed by settings
+                // like rate=8000,jitter=20,path=circle (see SyntheticInputSource.Settings)
+                syntheticSpec = i + 1 < args.length && !args[i + 1].startsWith("-") ? args[++i] : "";
+            } else if(args[i].equals("-headless")) {
+                // no window, samples only go to the statistics and the stats log
+                headless = true;
+            } else if(args[i].equals("-jfr")) {
+                // flight recording with every HamsterWheel event, written when the app exits
+                jfrPath = i + 1 < args.length && !args[i + 1].startsWith("-") ? args[++i] : "hamsterwheel.jfr";
+            } else if(args[i].equals("-fast")) {
+                // replay as fast as possible instead of with the original timing
+                replayRealTime = false;
+            } else if(args[i].equals("-analyze")) {
+                // headless analysis of a directory of captures
+                Log.addLogConsumer(System.out::println);
+                BatchAnalyzer.main(Arrays.copyOfRange(args, i + 1, args.length));
+                start = false;
+                break;
+            } else if(args[i].equals("-render")) {
+                // time offscreen frames of the main panel for a sweep of overlays
+                Log.addLogConsumer(System.out::println);
+                RenderHarness.main(Arrays.copyOfRange(args, i + 1, args.length));
+                start = false;
+                break;
+            } else if(args[i].equals("-convert")) {
+                // convert a binary capture file to csv
+                CaptureConverter.main(Arrays.copyOfRange(args, i + 1, args.length));
+                start = false;
+                break;
             }
         }
         if(!start) return;
@@ -45,12 +102,56 @@ public class Controller {
         Log.addLogConsumer(System.out::println);
 
         loadConfig();
-        loadMouseLocator();
-        loadFrame();
-        mouseLocator.start();
+        if (jfrPath != null) Events.startRecording(Path.of(jfrPath));
+        else Events.refresh();
+        loadInputSource();
+        if (headless) {
+            headlessStatistics = new SessionStatistics();
+            dispatcher.addConsumer("statistics", headlessStatistics::handle);
+        } else {
+            loadFrame();
+            dispatcher.addConsumer("gui", mouseUpdate -> gui.handleMouseUpdate(mouseUpdate));
+        }
+        dispatcher.addConsumer("stats", mouseUpdate -> Log.stats(mouseUpdate, config));
+        anomalyDetector = new AnomalyDetector(anomaly -> Log.anomaly(anomaly, config));
+        dispatcher.addConsumer("anomalies", anomalyDetector);
+        inputSource.start();
+        tasks.every(1, TimeUnit.SECONDS, "health", () -> {
+            Events.refresh();
+            jvmMetrics.update();
+            Log.health(inputSource.getMetrics(), inputSource.getScheduler(), jvmMetrics, config);
+        });
 
-        Log.addStatConsumer(gui::addStatsLog);
-        Log.addLogConsumer(gui::addDebugLog);
+        if (headless) {
+            try {
+                inputSource.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            dispatcher.close();
+            Scheduler.shutdown();
+            Log.info("%d samples, polling rate max %d Hz, class %d Hz, longest jump %d px, fastest movement %d px/s, fastest acceleration %d px/s2".formatted(
+                    headlessStatistics.getSamples(), headlessStatistics.getMaxPollingRate(), headlessStatistics.getPollingRateClass(),
+                    headlessStatistics.getLongestJump(), headlessStatistics.getFastestMovement(), headlessStatistics.getHighestAcceleration()));
+            IntervalHistogram intervals = headlessStatistics.getIntervals().getTotal();
+            Log.info("Report interval p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms".formatted(
+                    intervals.getValueAtPercentile(50) / 1000000f, intervals.getValueAtPercentile(90) / 1000000f,
+                    intervals.getValueAtPercentile(99) / 1000000f, intervals.getValueAtPercentile(99.9) / 1000000f,
+                    intervals.getMax() / 1000000f));
+            Log.info("Anomalies: %s".formatted(anomalyDetector.getSummary()));
+            jvmMetrics.update();
+            SamplerMetrics metrics = inputSource.getMetrics();
+            if (metrics != null) {
+                Log.info("Sampler stalls %d, longest %.2f ms".formatted(metrics.getStalls(), metrics.getLongestStall() / 1000000f));
+            }
+            Log.info("GC %d collections, %d ms".formatted(jvmMetrics.getGcCount(), jvmMetrics.getGcTime()));
+            Events.stopRecording();
+            Log.shutdown();
+            return;
+        }
+        // look up gui on every line like the gui consumer does, loadFrame() replaces it
+        Log.addStatConsumer(s -> gui.addStatsLog(s));
+        Log.addLogConsumer(s -> gui.addDebugLog(s));
 
     }
 
@@ -70,14 +171,50 @@ public class Controller {
         Log.info("Config file %s loaded".formatted(configFilePath));
     }
 
-    private static void loadMouseLocator() {
-        Log.info("Starting mouse analyser thread...");
-        mouseLocator = new MouseLocator(
-                mouseUpdate -> {
-                    gui.handleMouseUpdate(mouseUpdate);
-                    Log.stats(mouseUpdate, config.isEnableStatisticsLogging());
-                }, config);
-        Log.info("Mouse analyser thread started");
+    private static void loadInputSource() {
+        // sources that don't follow the cursor start in the middle of the screen
+        int centerX = 960, centerY = 540;
+        if (!headless) {
+            Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+            centerX = screenSize.width / 2;
+            centerY = screenSize.height / 2;
+        }
+
+        // live sources must never wait for a consumer, sources running faster than real time
+        // have nothing to lose by waiting and shouldn't drop samples
+        boolean realTime = replayRealTime;
+        SyntheticInputSource.Settings settings = null;
+        if (syntheticSpec != null) {
+            settings = SyntheticInputSource.Settings.parse(syntheticSpec);
+            if (!replayRealTime) settings.realTime = false;
+            realTime = settings.realTime;
+        }
+        boolean offline = replayFilePath != null || settings != null;
+        dispatcher = new SampleDispatcher(offline && !realTime ? SampleQueue.OVERFLOW_BLOCK : SampleQueue.OVERFLOW_DROP);
+
+        if (replayFilePath != null) {
+            inputSource = new ReplaySource(Path.of(replayFilePath), dispatcher, config, replayRealTime);
+        } else if (evdevPath != null) {
+            inputSource = new EvdevReader(Path.of(evdevPath), dispatcher, config, centerX, centerY);
+        } else if (settings != null) {
+            inputSource = new SyntheticInputSource(settings, dispatcher, config, centerX, centerY);
+        } else {
+            inputSource = new MouseLocator(dispatcher, config);
+        }
+        Log.info("Input source: %s, sample queue overflow: %s".formatted(inputSource.getSourceName(),
+                SampleQueue.OVERFLOW_NAMES[dispatcher.getOverflowPolicy()]));
+    }
+
+    public static SampleDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public static AnomalyDetector getAnomalyDetector() {
+        return anomalyDetector;
+    }
+
+    public static JvmMetrics getJvmMetrics() {
+        return jvmMetrics;
     }
 
     public static void loadFrame() {
@@ -85,8 +222,8 @@ public class Controller {
         if (gui != null) {
             gui.dispose();
         }
-        gui = new MainFrame(mouseLocator, mouseLocator, config);
-        Log.info("GUI loaded");
+        gui = new MainFrame(inputSource, config);
+        Log.info("GUI loaded, %d threads running".formatted(Thread.activeCount()));
 
     }
 
@@ -99,16 +236,21 @@ public class Controller {
             Log.error("Failed to save config file %s".formatted(configFilePath));
             e.printStackTrace();
         }
+        // stop in the order the samples flow: source, consumers, stats log, then the GUI
+        inputSource.shutdown();
+        try {
+            inputSource.join(1000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        dispatcher.close();
+        Events.stopRecording();
+        Log.shutdown();
+        if (gui != null) gui.dispose();
+        Scheduler.shutdown();
         Log.info("Goodbye.");
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-            System.exit(0);
-        }).start();
-
+        // the AWT threads would keep the JVM running otherwise
+        System.exit(0);
     }
 }
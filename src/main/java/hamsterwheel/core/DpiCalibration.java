@@ -0,0 +1,133 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+
+// works out the effective CPI of each axis from swipes over a known physical distance. a pass
+// is the movement between two pauses, its summed counts on the axis it went along are fitted
+// against the distance by least squares through the origin. only the sums of the fit are kept,
+// so any number of passes at any polling rate costs the same. the distance is read from the
+// config when a pass ends, changing it halfway through a calibration is fine
+public class DpiCalibration {
+
+    public static final int AXIS_X = 0, AXIS_Y = 1;
+    public static final String[] AXIS_NAMES = {"X", "Y"};
+    // a pause this long ends a pass
+    public static final long PASS_GAP_NANOS = 250_000_000;
+    // passes that go more than this much sideways are not along one axis
+    private static final double MAX_OFF_AXIS = 0.2;
+    // passes shorter than this part of the distance at the nominal dpi were not meant as one
+    private static final double MIN_EXPECTED_FRACTION = 0.25;
+    // two-sided 95% quantiles of the t distribution for 1 to 30 degrees of freedom, 1.96 above
+    private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private final Config config;
+
+    // per axis: passes, sum of distance^2, sum of counts * distance and sum of counts^2 (inches)
+    private final long[] passes = new long[2];
+    private final double[] sumDistanceSquared = new double[2], sumCountsDistance = new double[2],
+            sumCountsSquared = new double[2];
+    private long rejected = 0;
+
+    private boolean inPass = false;
+    private long passX, passY;
+    private double lastPassCpi;
+
+    public DpiCalibration(Config config) {
+        this.config = config;
+    }
+
+    public synchronized void update(MouseUpdate mouseUpdate) {
+        if (!mouseUpdate.hasPrevious()) return;
+        if (mouseUpdate.getNanosSinceLastUpdate() >= PASS_GAP_NANOS) endPass();
+        int dx = mouseUpdate.getX() - mouseUpdate.getPreviousX(), dy = mouseUpdate.getY() - mouseUpdate.getPreviousY();
+        if (dx == 0 && dy == 0) return;
+        if (!inPass) {
+            inPass = true;
+            passX = passY = 0;
+        }
+        passX += dx;
+        passY += dy;
+    }
+
+    // called once the cursor stood still for PASS_GAP_NANOS, so the last pass doesn't have to
+    // wait for the next one to start. returns whether a pass ended
+    public synchronized boolean endPass() {
+        if (!inPass) return false;
+        inPass = false;
+        int axis = Math.abs(passX) >= Math.abs(passY) ? AXIS_X : AXIS_Y;
+        long counts = Math.abs(axis == AXIS_X ? passX : passY), sideways = Math.abs(axis == AXIS_X ? passY : passX);
+        double inches = config.getCalibrationDistance() / 25.4;
+        if (counts == 0 || inches <= 0 || sideways > counts * MAX_OFF_AXIS
+                || counts < config.getDpi() * inches * MIN_EXPECTED_FRACTION) {
+            rejected++;
+            return true;
+        }
+        passes[axis]++;
+        sumDistanceSquared[axis] += inches * inches;
+        sumCountsDistance[axis] += counts * inches;
+        sumCountsSquared[axis] += (double) counts * counts;
+        lastPassCpi = counts / inches;
+        return true;
+    }
+
+    public synchronized void reset() {
+        for (int axis = 0; axis < 2; axis++) {
+            passes[axis] = 0;
+            sumDistanceSquared[axis] = 0;
+            sumCountsDistance[axis] = 0;
+            sumCountsSquared[axis] = 0;
+        }
+        rejected = 0;
+        inPass = false;
+        lastPassCpi = 0;
+    }
+
+    public synchronized long getPasses(int axis) {
+        return passes[axis];
+    }
+
+    // counts per inch, 0 before the first pass on the axis
+    public synchronized double getCpi(int axis) {
+        return sumDistanceSquared[axis] == 0 ? 0 : sumCountsDistance[axis] / sumDistanceSquared[axis];
+    }
+
+    // half width of the 95% confidence interval of getCpi, 0 until there are two passes
+    public synchronized double getCpiError(int axis) {
+        long n = passes[axis];
+        if (n < 2) return 0;
+        double cpi = getCpi(axis);
+        double residuals = Math.max(0, sumCountsSquared[axis] - 2 * cpi * sumCountsDistance[axis] + cpi * cpi * sumDistanceSquared[axis]);
+        double standardError = Math.sqrt(residuals / (n - 1) / sumDistanceSquared[axis]);
+        return (n - 1 <= T_95.length ? T_95[(int) n - 2] : 1.96) * standardError;
+    }
+
+    // how far the measured cpi is from the dpi in the config, in percent
+    public synchronized double getDeviation(int axis) {
+        return passes[axis] == 0 ? 0 : (getCpi(axis) / config.getDpi() - 1) * 100;
+    }
+
+    // the fit over the passes of both axes, what ENTER puts into the config
+    public synchronized double getCombinedCpi() {
+        double distance = sumDistanceSquared[AXIS_X] + sumDistanceSquared[AXIS_Y];
+        return distance == 0 ? 0 : (sumCountsDistance[AXIS_X] + sumCountsDistance[AXIS_Y]) / distance;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized double getLastPassCpi() {
+        return lastPassCpi;
+    }
+
+    // counts so far in the pass that is going on, 0 between passes
+    public synchronized long getPassX() {
+        return inPass ? passX : 0;
+    }
+
+    public synchronized long getPassY() {
+        return inPass ? passY : 0;
+    }
+}
@@ -0,0 +1,143 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Linux input backend: reads struct input_event records from /dev/input/event* (or a recorded
+// event file / fifo standing in for one) and turns every report, delimited by SYN_REPORT, into
+// a sample stamped with the kernel's timestamp. Unlike polling the cursor this sees reports that
+// don't move the cursor and never merges two reports into one sample.
+//
+// struct input_event { struct timeval time; __u16 type; __u16 code; __s32 value; }
+// is 24 bytes on 64 bit systems and 16 bytes on 32 bit ones, in native byte order.
+public class EvdevReader extends AbstractInputSource {
+
+    static final int EV_SYN = 0x00, EV_KEY = 0x01, EV_REL = 0x02;
+    static final int SYN_REPORT = 0, SYN_DROPPED = 3;
+    static final int REL_X = 0x00, REL_Y = 0x01;
+    static final int BTN_LEFT = 0x110, BTN_RIGHT = 0x111, BTN_MIDDLE = 0x112, BTN_SIDE = 0x113, BTN_EXTRA = 0x114;
+
+    private static final int EVENT_SIZE = "32".equals(System.getProperty("sun.arch.data.model")) ? 16 : 24;
+    private static final int TIME_FIELD_SIZE = EVENT_SIZE / 2 - 4;
+
+    private final Path path;
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+
+    private int x, y, buttons = 0, currentPollingRate = 0;
+    private volatile long reports = 0, droppedReports = 0;
+
+    public EvdevReader(Path path, Consumer<MouseUpdate> positionConsumer, Config config, int startX, int startY) {
+        super("EvdevReader", positionConsumer, config);
+        this.path = path;
+        this.x = startX;
+        this.y = startY;
+    }
+
+    @Override
+    public void run() {
+        Log.info("Reading input events from %s".formatted(path));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(EVENT_SIZE * 256).order(ByteOrder.nativeOrder());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean hasSample = false, moved = false, buttonsChanged = false, dropping = false;
+            int reportsThisSecond = 0;
+            long secondStart = 0;
+            while (!Thread.interrupted() && channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= EVENT_SIZE) {
+                    int start = buffer.position();
+                    long seconds = TIME_FIELD_SIZE == 8 ? buffer.getLong(start) : buffer.getInt(start);
+                    long micros = TIME_FIELD_SIZE == 8 ? buffer.getLong(start + 8) : buffer.getInt(start + 4);
+                    int type = buffer.getShort(start + 2 * TIME_FIELD_SIZE) & 0xFFFF;
+                    int code = buffer.getShort(start + 2 * TIME_FIELD_SIZE + 2) & 0xFFFF;
+                    int value = buffer.getInt(start + 2 * TIME_FIELD_SIZE + 4);
+                    buffer.position(start + EVENT_SIZE);
+                    long time = seconds * 1000000000L + micros * 1000L;
+
+                    if (dropping) {
+                        // the rest of the broken report, up to and including its SYN_REPORT
+                        if (type == EV_SYN && code == SYN_REPORT) dropping = false;
+                    } else if (type == EV_SYN && code == SYN_DROPPED) {
+                        // the kernel buffer overflowed and events were thrown away. the report in
+                        // progress is incomplete, so nothing is published until the next one starts.
+                        // the button state can't be re-read, there is no EVIOCGKEY without an ioctl,
+                        // the next press or release of each button corrects it
+                        droppedReports++;
+                        dropping = true;
+                        moved = false;
+                        buttonsChanged = false;
+                    } else if (type == EV_REL && code == REL_X) {
+                        x += value;
+                        moved = true;
+                    } else if (type == EV_REL && code == REL_Y) {
+                        y += value;
+                        moved = true;
+                    } else if (type == EV_KEY && value != 2) {
+                        int button = toButton(code);
+                        if (button > 0) {
+                            if (value == 1) {
+                                buttons |= 1 << button;
+                                clickTimer.pressed(button, time);
+                            } else {
+                                buttons &= ~(1 << button);
+                                clickTimer.released(button, time);
+                            }
+                            buttonsPressed = buttons;
+                            buttonsChanged = true;
+                        }
+                    } else if (type == EV_SYN && code == SYN_REPORT && (moved || buttonsChanged)) {
+                        moved = false;
+                        buttonsChanged = false;
+                        reports++;
+                        if (time - secondStart >= 1000000000L) {
+                            currentPollingRate = reportsThisSecond;
+                            reportsThisSecond = 0;
+                            secondStart = time;
+                        }
+                        reportsThisSecond++;
+                        mouseUpdate.set(time, x, y, config.getDpi(), currentPollingRate, buttons);
+                        mouseUpdate.setHasPrevious(hasSample);
+                        hasSample = true;
+                        // the kernel keeps queueing events while paused, they are read and dropped
+                        if (!paused) publish(mouseUpdate);
+                    }
+                }
+                buffer.compact();
+            }
+            Log.info("Input event stream %s ended after %d reports".formatted(path, reports));
+        } catch (ClosedByInterruptException e) {
+            // shutdown() interrupts the blocked read, which closes the channel
+            Log.info("Stopped reading input events from %s after %d reports".formatted(path, reports));
+        } catch (IOException e) {
+            Log.error("Failed to read input events from %s: %s".formatted(path, e.getMessage()));
+        }
+    }
+
+    // same button numbers as java.awt.event.MouseEvent
+    static int toButton(int code) {
+        return switch (code) {
+            case BTN_LEFT -> 1;
+            case BTN_MIDDLE -> 2;
+            case BTN_RIGHT -> 3;
+            case BTN_SIDE -> 4;
+            case BTN_EXTRA -> 5;
+            default -> 0;
+        };
+    }
+
+    public long getReports() {
+        return reports;
+    }
+
+    public long getDroppedReports() {
+        return droppedReports;
+    }
+}
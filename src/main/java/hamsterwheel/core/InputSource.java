@@ -0,0 +1,41 @@
+package hamsterwheel.core;
+
+// a source of samples for the consumer pipeline: the live cursor poller, the evdev reader,
+// a replayed capture or the synthetic generator, picked by Controller at startup
+public interface InputSource {
+
+    String getSourceName();
+
+    void start();
+
+    // asks the source to stop producing samples
+    void shutdown();
+
+    // waits until the source has stopped, e.g. at the end of a replay
+    void join() throws InterruptedException;
+
+    void join(long millis) throws InterruptedException;
+
+    // bit n is set while mouse button n is held down
+    int getButtonsPressed();
+
+    float getRelativeClickLatency();
+
+    float getClickInterval();
+
+    float getClickDuration();
+
+    boolean isPaused();
+
+    void setPaused(boolean paused);
+
+    // only sources that poll have a scheduler
+    default SamplingScheduler getScheduler() {
+        return null;
+    }
+
+    // only the cursor poller measures its own loop
+    default SamplerMetrics getMetrics() {
+        return null;
+    }
+}
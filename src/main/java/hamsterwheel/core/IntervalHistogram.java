@@ -0,0 +1,98 @@
+package hamsterwheel.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// log-linear histogram of nanosecond intervals: every power of two is split into 128 linear
+// sub-buckets, so any value is off by less than 1% (8 us at 1 ms) and values below 256 ns are exact.
+// recording is a plain read and an ordered store of one array element from a single writer
+// thread, no atomic read-modify-write, readers can query it at the same time without locking
+public class IntervalHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // covers up to 2^36 ns (~68 s), longer intervals land in the last bucket
+    private static final int MAX_SHIFT = 36 - SUB_BUCKET_BITS;
+    public static final int BUCKET_COUNT = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private volatile long count = 0, sum = 0, max = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        int index = indexOf(nanos);
+        // only this thread writes, lazySet publishes the count without a locked increment
+        counts.lazySet(index, counts.get(index) + 1);
+        count++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) counts.set(i, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    // adds the other histogram's counts to this one
+    public void add(IntervalHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.lazySet(i, counts.get(i) + c);
+        }
+        count += other.count;
+        sum += other.sum;
+        if (other.max > max) max = other.max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        long c = count;
+        return c == 0 ? 0 : sum / c;
+    }
+
+    // smallest recorded bucket value that percentile % of the intervals are at or below, 0 if empty
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) total += counts.get(i);
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(midpointOf(i), max);
+        }
+        return max;
+    }
+
+    public long getBucketCount(int index) {
+        return counts.get(index);
+    }
+
+    static int indexOf(long nanos) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos | (2 * SUB_BUCKETS - 1));
+        int shift = magnitude - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) return BUCKET_COUNT - 1;
+        return (shift << SUB_BUCKET_BITS) + (int) (nanos >>> shift);
+    }
+
+    // lowest value that falls into the bucket
+    public static long lowerBoundOf(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+    }
+
+    public static long midpointOf(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        return lowerBoundOf(index) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,162 @@
+package hamsterwheel.core;
+
+// velocity and acceleration of the cursor from the sample timestamps. velocity is the distance
+// covered over the last windowNanos divided by the time it took, which is the average of the
+// per-sample velocities weighted by their intervals, acceleration is the same over the smoothed
+// velocities. both windows are rings of primitives trimmed from the oldest end, so an update is
+// O(1) amortized and never allocates. the window is measured in time and not in samples, so
+// the smoothing is the same at any polling rate or divisor
+public class Kinematics {
+
+    public static final long DEFAULT_WINDOW_NANOS = 8_000_000;
+    // samples further apart than this are a new movement that starts from standing still
+    public static final long IDLE_GAP_NANOS = SlidingIntervalHistogram.IDLE_GAP_NANOS;
+    // enough for the window at 16 kHz with room for bursts, a full ring drops its oldest entry
+    private static final int CAPACITY = 1024;
+
+    private final long windowNanos;
+
+    // positions in the velocity window
+    private final long[] positionTimes = new long[CAPACITY];
+    private final int[] xs = new int[CAPACITY], ys = new int[CAPACITY];
+    private long positionHead = 0, positionTail = 0;
+
+    // smoothed velocities in the acceleration window
+    private final long[] velocityTimes = new long[CAPACITY];
+    private final double[] vxs = new double[CAPACITY], vys = new double[CAPACITY];
+    private long velocityHead = 0, velocityTail = 0;
+
+    private double velocityX, velocityY, velocity, accelerationX, accelerationY, acceleration;
+    private double peakVelocity, peakAcceleration;
+    // set from other threads, the windows themselves are only touched in update
+    private volatile boolean restart = false;
+
+    public Kinematics() {
+        this(DEFAULT_WINDOW_NANOS);
+    }
+
+    public Kinematics(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    public void update(MouseUpdate mouseUpdate) {
+        update(mouseUpdate.getTime(), mouseUpdate.getX(), mouseUpdate.getY());
+    }
+
+    public void update(long time, int x, int y) {
+        if (restart || (positionTail > positionHead && time - positionTimes[(int) ((positionTail - 1) % CAPACITY)] >= IDLE_GAP_NANOS)) {
+            restart = false;
+            positionHead = positionTail = 0;
+            velocityHead = velocityTail = 0;
+        }
+        if (positionTail == positionHead) {
+            // the cursor was standing still until now
+            addVelocity(time, 0, 0);
+        }
+        addPosition(time, x, y);
+
+        // right after standing still the window isn't full yet, the cursor was resting at the
+        // first position for the rest of it, which also keeps the first few samples from spiking
+        int oldest = (int) (positionHead % CAPACITY);
+        long span = Math.max(windowNanos, time - positionTimes[oldest]);
+        velocityX = (x - xs[oldest]) * 1e9 / span;
+        velocityY = (y - ys[oldest]) * 1e9 / span;
+        velocity = Math.sqrt(velocityX * velocityX + velocityY * velocityY);
+        if (velocity > peakVelocity) peakVelocity = velocity;
+
+        addVelocity(time, velocityX, velocityY);
+        int oldestVelocity = (int) (velocityHead % CAPACITY);
+        span = Math.max(windowNanos, time - velocityTimes[oldestVelocity]);
+        accelerationX = (velocityX - vxs[oldestVelocity]) * 1e9 / span;
+        accelerationY = (velocityY - vys[oldestVelocity]) * 1e9 / span;
+        acceleration = Math.sqrt(accelerationX * accelerationX + accelerationY * accelerationY);
+        if (acceleration > peakAcceleration) peakAcceleration = acceleration;
+    }
+
+    // the next sample starts a new movement, the peaks are kept. safe to call from any thread
+    public void markStationary() {
+        restart = true;
+        velocityX = velocityY = velocity = 0;
+        accelerationX = accelerationY = acceleration = 0;
+    }
+
+    public void reset() {
+        markStationary();
+        peakVelocity = 0;
+        peakAcceleration = 0;
+    }
+
+    private void addPosition(long time, int x, int y) {
+        if (positionTail - positionHead == CAPACITY) positionHead++;
+        int index = (int) (positionTail % CAPACITY);
+        positionTimes[index] = time;
+        xs[index] = x;
+        ys[index] = y;
+        positionTail++;
+        // keep the newest position that is at least a window old as the start of the window
+        while (positionTail - positionHead > 2 && time - positionTimes[(int) ((positionHead + 1) % CAPACITY)] >= windowNanos) {
+            positionHead++;
+        }
+    }
+
+    private void addVelocity(long time, double vx, double vy) {
+        if (velocityTail - velocityHead == CAPACITY) velocityHead++;
+        int index = (int) (velocityTail % CAPACITY);
+        velocityTimes[index] = time;
+        vxs[index] = vx;
+        vys[index] = vy;
+        velocityTail++;
+        while (velocityTail - velocityHead > 2 && time - velocityTimes[(int) ((velocityHead + 1) % CAPACITY)] >= windowNanos) {
+            velocityHead++;
+        }
+    }
+
+    // px/s, positive x is to the right and positive y is down like screen coordinates
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    // px/s2
+    public double getAccelerationX() {
+        return accelerationX;
+    }
+
+    public double getAccelerationY() {
+        return accelerationY;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public double getPeakVelocity() {
+        return peakVelocity;
+    }
+
+    public double getPeakAcceleration() {
+        return peakAcceleration;
+    }
+
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    // the stats log columns: ",velocity,velocityx,velocityy,acceleration,accelerationx,accelerationy"
+    // rounded to whole px/s and px/s2, appending into a reused builder does not allocate
+    public StringBuilder appendTo(StringBuilder stringBuilder) {
+        return stringBuilder.append(',').append(Math.round(velocity))
+                .append(',').append(Math.round(velocityX))
+                .append(',').append(Math.round(velocityY))
+                .append(',').append(Math.round(acceleration))
+                .append(',').append(Math.round(accelerationX))
+                .append(',').append(Math.round(accelerationY));
+    }
+}
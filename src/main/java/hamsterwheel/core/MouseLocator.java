@@ -1,103 +1,83 @@
 package hamsterwheel.core;
 
 import hamsterwheel.config.Config;
+import hamsterwheel.util.Scheduler;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
-public class MouseLocator extends Thread implements MouseListener {
+// polls the AWT cursor position, buttons come in through the MouseListener of the window
+public class MouseLocator extends AbstractInputSource implements MouseListener {
 
-    private Config config;
-    private Consumer<MouseUpdate> positionConsumer;
-    private Thread pollingRateMeasurerThread;
+    private SamplingScheduler scheduler;
+    private final SamplerMetrics metrics;
+    private final Scheduler.Group tasks = new Scheduler.Group("MouseLocator");
 
-    private MouseUpdate mouseUpdate = null;
-    public List<Integer> buttonsPressed = new ArrayList<>();
-    private int mouseUpdateCounter = 0, currentPollingRate = 0;
-    private boolean paused = false;
-
-    private long lastRightClickPressed, lastLeftClickPressed, lastLeftClickReleased;
-    private float lastClickDuration, lastClickInterval;
+    // reused for every sample, consumers have to copy it if they want to keep it
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    // only the sampling thread writes the counter, the measurer keeps its own last value
+    // instead of resetting it so no increments get lost in between
+    private volatile long mouseUpdateCounter = 0;
+    private volatile int currentPollingRate = 0;
+    private long measuredCounter;
 
     public MouseLocator(Consumer<MouseUpdate> positionConsumer, Config config) {
-        this.positionConsumer = positionConsumer;
-        this.config = config;
+        super("MouseLocator", positionConsumer, config);
+        this.scheduler = new SamplingScheduler(config);
+        this.metrics = new SamplerMetrics(config);
     }
 
     @Override
     public void run() {
-        pollingRateMeasurerThread = new Thread(() -> {
-            while (!Thread.interrupted()) {
-                currentPollingRate = mouseUpdateCounter;
-                mouseUpdateCounter = 0;
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }, "PollingRateMeasurer");
-        pollingRateMeasurerThread.start();
+        measuredCounter = mouseUpdateCounter;
+        tasks.every(1, TimeUnit.SECONDS, "polling rate", () -> {
+            long counter = mouseUpdateCounter;
+            currentPollingRate = (int) (counter - measuredCounter);
+            measuredCounter = counter;
+        });
 
 
         Point currentPosition = null;
-        int pollSkipping = 1;
+        boolean hasSample = false;
         int pollsBeforeUpdate = 0;
         while (!Thread.interrupted()) {
-            while (paused) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            if (paused) {
+                if (!awaitUnpaused()) break;
+                metrics.restart();
             }
 
+            long pollStart = System.nanoTime();
             currentPosition = MouseInfo.getPointerInfo().getLocation();
+            long pollEnd = System.nanoTime();
+            metrics.poll(pollStart, pollEnd);
             pollsBeforeUpdate++;
-            if (mouseUpdate == null || !currentPosition.equals(mouseUpdate.getPosition())) {
-                mouseUpdate = new MouseUpdate(System.nanoTime(), currentPosition,
-                        config.getDpi(), currentPollingRate, mouseUpdate, buttonsPressed.toArray(new Integer[0]));
-//                if (mouseUpdate.getTimeSinceLastUpdate() > 2000000) {
-//                    System.out.println(mouseUpdate.getTimeSinceLastUpdate() / (float) 1000000 + " ms " + pollsBeforeUpdate);
-//                }
-
+            boolean changed = !hasSample || currentPosition.x != mouseUpdate.getX() || currentPosition.y != mouseUpdate.getY();
+            if (changed) {
+                mouseUpdate.set(pollEnd, currentPosition.x, currentPosition.y,
+                        config.getDpi(), currentPollingRate, buttonsPressed);
+                mouseUpdate.setHasPrevious(hasSample);
+                hasSample = true;
+
+                if (publish(mouseUpdate)) mouseUpdateCounter++;
+                metrics.changed(pollsBeforeUpdate, System.nanoTime() - pollEnd);
                 pollsBeforeUpdate = 0;
-                if (pollSkipping < config.getPollrateDivisor()) {
-                    pollSkipping++;
-                } else {
-                    mouseUpdateCounter++;
-                    positionConsumer.accept(mouseUpdate);
-                    pollSkipping = 1;
-                }
             }
+            scheduler.awaitNext(changed);
         }
-        pollingRateMeasurerThread.interrupt();
-    }
-
-    public float getRelativeClickLatency() {
-        float latency = (this.lastRightClickPressed - this.lastLeftClickPressed) / 1000000f;
-        if(latency > 1000 || latency < -1000) return 0;
-        else return latency;
-    }
-
-    public float getClickInterval() {
-        return this.lastClickInterval;
+        tasks.cancel();
     }
 
-    public float getClickDuration() {
-        return this.lastClickDuration;
-    }
-
-    public boolean isPaused() {
-        return paused;
+    @Override
+    public SamplingScheduler getScheduler() {
+        return scheduler;
     }
 
-    public void setPaused(boolean paused) {
-        this.paused = paused;
+    @Override
+    public SamplerMetrics getMetrics() {
+        return metrics;
     }
 
     @Override
@@ -107,26 +87,14 @@ public class MouseLocator extends Thread implements MouseListener {
 
     @Override
     public void mousePressed(MouseEvent e) {
-        if (e.getButton() == 1) lastLeftClickPressed = System.nanoTime();
-        else if (e.getButton() == 3) lastRightClickPressed = System.nanoTime();
-
-        if (lastLeftClickPressed == 0 || lastLeftClickReleased == 0) this.lastClickInterval = 0;
-        else this.lastClickInterval = (this.lastLeftClickPressed - this.lastLeftClickReleased) / 1000000f;
-
-        buttonsPressed.add(e.getButton());
+        clickTimer.pressed(e.getButton(), System.nanoTime());
+        buttonsPressed |= 1 << e.getButton();
     }
 
     @Override
     public void mouseReleased(MouseEvent e) {
-        if (e.getButton() == 1) lastLeftClickReleased = System.nanoTime();
-        if (lastLeftClickPressed == 0 || lastLeftClickReleased == 0) this.lastClickDuration = 0;
-        else this.lastClickDuration = (this.lastLeftClickReleased - this.lastLeftClickPressed) / 1000000f;
-        for (int i = 0; i < buttonsPressed.size(); i++) {
-            if (buttonsPressed.get(i) == e.getButton()) {
-                buttonsPressed.remove(i);
-                return;
-            }
-        }
+        clickTimer.released(e.getButton(), System.nanoTime());
+        buttonsPressed &= ~(1 << e.getButton());
     }
 
     @Override
@@ -1,45 +1,110 @@
 package hamsterwheel.core;
 
-import java.awt.*;
-import java.util.Arrays;
-
+// a single sample, kept in primitive fields so that instances can be reused
+// by the sampling thread instead of allocating one per position change
 public class MouseUpdate {
     private long time;
-    private Point position;
+    private int x, y;
     private int dpi, pollingRate;
-    private MouseUpdate previous;
-    private Integer[] buttonsPressed;
+    // only the previous sample's time and position are kept, never the previous update itself
+    private long previousTime;
+    private int previousX, previousY;
+    private boolean hasPrevious;
+    // bit n is set while mouse button n is held down
+    private int buttonsPressed;
 
 
     public MouseUpdate() {
         this.time = System.nanoTime();
-        this.position = new Point();
         this.dpi = 1600;
         this.pollingRate = 0;
-        this.previous = null;
-        this.buttonsPressed = new Integer[0];
+        this.hasPrevious = false;
+        this.buttonsPressed = 0;
+    }
+
+    public MouseUpdate(long time, int x, int y, int dpi, int pollingRate, int buttonsPressed) {
+        set(time, x, y, dpi, pollingRate, buttonsPressed);
     }
 
-    public MouseUpdate(long time, Point position, int dpi, int pollingRate, MouseUpdate previous, Integer[] buttonsPressed) {
+    // moves the current sample into the previous slot and stores the new one in its place
+    public void set(long time, int x, int y, int dpi, int pollingRate, int buttonsPressed) {
+        this.previousTime = this.time;
+        this.previousX = this.x;
+        this.previousY = this.y;
         this.time = time;
-        this.position = position;
+        this.x = x;
+        this.y = y;
         this.dpi = dpi;
         this.pollingRate = pollingRate;
-        this.previous = previous;
         this.buttonsPressed = buttonsPressed;
     }
 
+    // call after set() once there is a real sample in the previous slot
+    public void setHasPrevious(boolean hasPrevious) {
+        this.hasPrevious = hasPrevious;
+    }
+
+    public void copyFrom(MouseUpdate other) {
+        this.time = other.time;
+        this.x = other.x;
+        this.y = other.y;
+        this.dpi = other.dpi;
+        this.pollingRate = other.pollingRate;
+        this.previousTime = other.previousTime;
+        this.previousX = other.previousX;
+        this.previousY = other.previousY;
+        this.hasPrevious = other.hasPrevious;
+        this.buttonsPressed = other.buttonsPressed;
+    }
+
     @Override
     public String toString() {
-        return "%.2f,%s,%s,%s,%s,%s".formatted(getTimeSinceLastUpdate(), position.x, position.y, dpi, pollingRate, Arrays.toString(buttonsPressed));
+        return appendTo(new StringBuilder(48)).toString();
+    }
+
+    // same layout as "%.2f,%d,%d,%d,%d,[buttons]" without going through the formatter,
+    // appending into a reused builder does not allocate
+    public StringBuilder appendTo(StringBuilder stringBuilder) {
+        appendMillis(stringBuilder, getNanosSinceLastUpdate());
+        stringBuilder.append(',').append(x)
+                .append(',').append(y)
+                .append(',').append(dpi)
+                .append(',').append(pollingRate)
+                .append(',');
+        return appendButtons(stringBuilder, buttonsPressed);
+    }
+
+    public static StringBuilder appendMillis(StringBuilder stringBuilder, long nanos) {
+        long hundredths = (nanos + 5000) / 10000;
+        long fraction = hundredths % 100;
+        stringBuilder.append(hundredths / 100).append('.');
+        if (fraction < 10) stringBuilder.append('0');
+        return stringBuilder.append(fraction);
+    }
+
+    public static StringBuilder appendButtons(StringBuilder stringBuilder, int buttons) {
+        stringBuilder.append('[');
+        boolean first = true;
+        for (int button = 0; button < 32; button++) {
+            if ((buttons & (1 << button)) != 0) {
+                if (!first) stringBuilder.append(", ");
+                stringBuilder.append(button);
+                first = false;
+            }
+        }
+        return stringBuilder.append(']');
     }
 
     public long getTime() {
         return time;
     }
 
-    public Point getPosition() {
-        return position;
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
     }
 
     public int getDpi() {
@@ -50,23 +115,36 @@ public class MouseUpdate {
         return pollingRate;
     }
 
-    public MouseUpdate getPrevious() {
-        return previous;
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    public long getPreviousTime() {
+        return previousTime;
+    }
+
+    public int getPreviousX() {
+        return previousX;
+    }
+
+    public int getPreviousY() {
+        return previousY;
     }
 
-    public Integer[] getButtonsPressed() {
+    public int getButtonsPressed() {
         return buttonsPressed;
     }
 
-    public float getTimeSinceLastUpdate() {
-        if (this.previous != null) {
-            long diffInNanos = this.time - previous.time;
-            return diffInNanos/1000000f;
-        } else return 0;
+    public boolean isButtonPressed(int button) {
+        return (buttonsPressed & (1 << button)) != 0;
+    }
 
+    public long getNanosSinceLastUpdate() {
+        if (hasPrevious) return this.time - previousTime;
+        else return 0;
     }
 
-    public void setPrevious(MouseUpdate mouseUpdate) {
-        this.previous = mouseUpdate;
+    public float getTimeSinceLastUpdate() {
+        return getNanosSinceLastUpdate() / 1000000f;
     }
 }
@@ -0,0 +1,67 @@
+package hamsterwheel.core;
+
+import hamsterwheel.capture.SampleReader;
+import hamsterwheel.config.Config;
+import hamsterwheel.util.Log;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+// feeds a recorded session into the same consumer the live MouseLocator would, either with the
+// original timing between samples or as fast as the consumer takes them
+// the pollrate divisor is not applied, a capture is replayed the way it was recorded
+public class ReplaySource extends AbstractInputSource {
+
+    private final Path path;
+    private final boolean realTime;
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+
+    private volatile long samplesReplayed = 0;
+
+    public ReplaySource(Path path, Consumer<MouseUpdate> positionConsumer, Config config, boolean realTime) {
+        super("ReplaySource", positionConsumer, config);
+        this.path = path;
+        this.realTime = realTime;
+    }
+
+    @Override
+    public void run() {
+        Log.info("Replaying %s %s".formatted(path, realTime ? "with original timing" : "at maximum speed"));
+        try (SampleReader reader = SampleReader.open(path)) {
+            long startNanos = System.nanoTime(), firstSampleTime = 0, pausedNanos = 0;
+            boolean first = true;
+            while (!Thread.interrupted() && reader.next(mouseUpdate)) {
+                if (paused) {
+                    long pauseStart = System.nanoTime();
+                    if (!awaitUnpaused()) return;
+                    pausedNanos += System.nanoTime() - pauseStart;
+                }
+                if (first) {
+                    firstSampleTime = mouseUpdate.getTime();
+                    first = false;
+                }
+                if (realTime) {
+                    // sleeping would be off by up to a millisecond, so spin until the sample is due
+                    long due = startNanos + pausedNanos + (mouseUpdate.getTime() - firstSampleTime);
+                    while (System.nanoTime() < due) Thread.onSpinWait();
+                }
+                if (mouseUpdate.getButtonsPressed() != buttonsPressed) {
+                    clickTimer.buttonsChanged(buttonsPressed, mouseUpdate.getButtonsPressed(), mouseUpdate.getTime());
+                    buttonsPressed = mouseUpdate.getButtonsPressed();
+                }
+                deliver(mouseUpdate);
+                samplesReplayed++;
+            }
+            long elapsed = System.nanoTime() - startNanos - pausedNanos;
+            Log.info("Replay finished, %d samples in %.1f ms (%.0f samples/sec)".formatted(samplesReplayed,
+                    elapsed / 1000000f, samplesReplayed / (elapsed / 1000000000.0)));
+        } catch (IOException e) {
+            Log.error("Failed to replay %s: %s".formatted(path, e.getMessage()));
+        }
+    }
+
+    public long getSamplesReplayed() {
+        return samplesReplayed;
+    }
+}
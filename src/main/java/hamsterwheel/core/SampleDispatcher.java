@@ -0,0 +1,76 @@
+package hamsterwheel.core;
+
+import hamsterwheel.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// the consumer every input source publishes into, fans each sample out to one SampleQueue
+// per consumer so rendering and logging run on their own threads instead of the sampler's
+public class SampleDispatcher implements Consumer<MouseUpdate> {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 16384;
+
+    private final List<SampleQueue> queues = new ArrayList<>();
+    private final int overflowPolicy;
+    private volatile SampleQueue[] queueArray = new SampleQueue[0];
+
+    public SampleDispatcher(int overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    // must be called before the input source starts publishing
+    public synchronized SampleQueue addConsumer(String name, Consumer<MouseUpdate> consumer) {
+        SampleQueue queue = new SampleQueue(name, consumer, DEFAULT_QUEUE_CAPACITY, overflowPolicy);
+        queues.add(queue);
+        queueArray = queues.toArray(new SampleQueue[0]);
+        return queue;
+    }
+
+    // runs on the sampling thread
+    @Override
+    public void accept(MouseUpdate mouseUpdate) {
+        for (SampleQueue queue : queueArray) queue.offer(mouseUpdate);
+    }
+
+    public SampleQueue[] getQueues() {
+        return queueArray;
+    }
+
+    public int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    // largest number of samples any consumer is behind right now
+    public long getLag() {
+        long lag = 0;
+        for (SampleQueue queue : queueArray) lag = Math.max(lag, queue.getLag());
+        return lag;
+    }
+
+    public long getMaxLag() {
+        long maxLag = 0;
+        for (SampleQueue queue : queueArray) maxLag = Math.max(maxLag, queue.getMaxLag());
+        return maxLag;
+    }
+
+    public long getDropped() {
+        long dropped = 0;
+        for (SampleQueue queue : queueArray) dropped += queue.getDropped();
+        return dropped;
+    }
+
+    public void resetMaxLag() {
+        for (SampleQueue queue : queueArray) queue.resetMaxLag();
+    }
+
+    // lets every consumer finish what is still queued, call after the input source has stopped
+    public void close() {
+        for (SampleQueue queue : queueArray) {
+            queue.close();
+            Log.info("Sample queue %s closed, %d consumed, %d dropped, %d max lag".formatted(
+                    queue.getName(), queue.getConsumed(), queue.getDropped(), queue.getMaxLag()));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package hamsterwheel.core;
+
+// fixed capacity ring buffer of past samples, stored in primitive arrays so the
+// session history never grows and never holds on to MouseUpdate objects
+public class SampleHistory {
+
+    private final long[] times;
+    private final int[] xs, ys, buttons;
+    private final int capacity;
+
+    // total number of samples ever added, the newest one sits at (count - 1) % capacity
+    private volatile long count = 0;
+
+    public SampleHistory(int capacity) {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.buttons = new int[capacity];
+    }
+
+    public void add(long time, int x, int y, int buttonsPressed) {
+        int index = (int) (count % capacity);
+        times[index] = time;
+        xs[index] = x;
+        ys[index] = y;
+        buttons[index] = buttonsPressed;
+        count++;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // age 0 is the newest sample, age size() - 1 the oldest one still kept
+    public long getTime(int age) {
+        return times[indexOf(age)];
+    }
+
+    public int getX(int age) {
+        return xs[indexOf(age)];
+    }
+
+    public int getY(int age) {
+        return ys[indexOf(age)];
+    }
+
+    public int getButtons(int age) {
+        return buttons[indexOf(age)];
+    }
+
+    // sequence n is the (n + 1)th sample ever added, it is still kept while
+    // n >= getCount() - getCapacity()
+    public int getXAt(long sequence) {
+        return xs[(int) (sequence % capacity)];
+    }
+
+    public int getYAt(long sequence) {
+        return ys[(int) (sequence % capacity)];
+    }
+
+    public int getButtonsAt(long sequence) {
+        return buttons[(int) (sequence % capacity)];
+    }
+
+    private int indexOf(int age) {
+        return (int) ((count - 1 - age) % capacity);
+    }
+}
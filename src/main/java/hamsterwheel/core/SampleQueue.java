@@ -0,0 +1,202 @@
+package hamsterwheel.core;
+
+import hamsterwheel.util.Log;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// single producer / single consumer handoff from the sampling thread to one consumer.
+// the producer only copies primitives into preallocated slots, the consumer runs on its
+// own thread and gets the samples in batches through a MouseUpdate it owns
+public class SampleQueue {
+
+    // full queue: drop the new sample and count it, the sampler never waits
+    public static final int OVERFLOW_DROP = 0;
+    // full queue: wait for the consumer, only for sources that don't run in real time
+    public static final int OVERFLOW_BLOCK = 1;
+    public static final String[] OVERFLOW_NAMES = {"drop", "block"};
+
+    private static final int BATCH_SIZE = 256;
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000;
+
+    private final String name;
+    private final Consumer<MouseUpdate> consumer;
+    private final int overflowPolicy;
+    private final Thread drainThread;
+
+    // previous time and position are stored as well, the consumer can't rebuild them from
+    // the slot before when samples were dropped in between
+    private final int capacity;
+    private final long[] times, previousTimes;
+    private final int[] xs, ys, previousXs, previousYs, dpis, pollingRates, buttons;
+    private final boolean[] hasPrevious;
+    private volatile long head = 0, tail = 0;
+
+    // set while the drain thread parks on an empty queue, offer() only unparks it then
+    private volatile boolean running = true, parked = false;
+    private volatile long consumed = 0, dropped = 0, blocked = 0, maxLag = 0;
+    // samples the consumer threw on, only touched by the drain thread
+    private long failed = 0, reportedFailed = 0;
+    private RuntimeException lastFailure;
+    private long reportedDropped = 0, lastReport = 0;
+
+    public SampleQueue(String name, Consumer<MouseUpdate> consumer, int capacity, int overflowPolicy) {
+        this.name = name;
+        this.consumer = consumer;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.times = new long[capacity];
+        this.previousTimes = new long[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.previousXs = new int[capacity];
+        this.previousYs = new int[capacity];
+        this.dpis = new int[capacity];
+        this.pollingRates = new int[capacity];
+        this.buttons = new int[capacity];
+        this.hasPrevious = new boolean[capacity];
+
+        drainThread = new Thread(this::run, "SampleQueue-" + name);
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    // called from the sampling thread, returns false if the sample was dropped
+    public boolean offer(MouseUpdate mouseUpdate) {
+        long t = tail;
+        if (t - head >= capacity) {
+            if (overflowPolicy == OVERFLOW_DROP) {
+                dropped++;
+                return false;
+            }
+            blocked++;
+            while (t - head >= capacity && running) Thread.onSpinWait();
+            // closed while waiting, the slot still belongs to the consumer
+            if (t - head >= capacity) {
+                dropped++;
+                return false;
+            }
+        }
+        int index = (int) (t % capacity);
+        times[index] = mouseUpdate.getTime();
+        previousTimes[index] = mouseUpdate.getPreviousTime();
+        xs[index] = mouseUpdate.getX();
+        ys[index] = mouseUpdate.getY();
+        previousXs[index] = mouseUpdate.getPreviousX();
+        previousYs[index] = mouseUpdate.getPreviousY();
+        dpis[index] = mouseUpdate.getDpi();
+        pollingRates[index] = mouseUpdate.getPollingRate();
+        buttons[index] = mouseUpdate.getButtonsPressed();
+        hasPrevious[index] = mouseUpdate.hasPrevious();
+        tail = t + 1;
+        if (parked) LockSupport.unpark(drainThread);
+        return true;
+    }
+
+    // stops the drain thread after everything still queued has been consumed
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    // samples waiting for the consumer right now
+    public long getLag() {
+        return tail - head;
+    }
+
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    public void resetMaxLag() {
+        maxLag = 0;
+    }
+
+    public long getConsumed() {
+        return consumed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    // number of times the producer had to wait for space
+    public long getBlocked() {
+        return blocked;
+    }
+
+    private void run() {
+        MouseUpdate mouseUpdate = new MouseUpdate();
+        while (running || tail != head) {
+            long lag = tail - head;
+            if (lag > maxLag) maxLag = lag;
+            if (lag == 0) {
+                parked = true;
+                // offer() may have missed the flag, look again before parking
+                if (tail == head && running) {
+                    // no timeout while there is nothing to report, an idle queue costs no wakeups
+                    if (dropped == reportedDropped && failed == reportedFailed) LockSupport.park();
+                    else LockSupport.parkNanos(Math.max(0, lastReport + REPORT_INTERVAL_NANOS - System.nanoTime()));
+                }
+                parked = false;
+            } else {
+                drain(mouseUpdate);
+            }
+            if (System.nanoTime() - lastReport >= REPORT_INTERVAL_NANOS) report();
+        }
+        report();
+    }
+
+    private int drain(MouseUpdate mouseUpdate) {
+        long h = head, t = Math.min(tail, head + BATCH_SIZE);
+        int count = 0;
+        while (h < t) {
+            int index = (int) (h % capacity);
+            // two sets so the update ends up with the slot's previous sample behind the current one
+            mouseUpdate.set(previousTimes[index], previousXs[index], previousYs[index], dpis[index], pollingRates[index], buttons[index]);
+            mouseUpdate.set(times[index], xs[index], ys[index], dpis[index], pollingRates[index], buttons[index]);
+            mouseUpdate.setHasPrevious(hasPrevious[index]);
+            h++;
+            // the values are copied out, so the slot can go back to the producer before the consumer runs
+            head = h;
+            try {
+                consumer.accept(mouseUpdate);
+            } catch (RuntimeException e) {
+                // reported once a second, a broken consumer would flood the log at the polling rate
+                failed++;
+                lastFailure = e;
+            }
+            count++;
+        }
+        consumed += count;
+        return count;
+    }
+
+    private void report() {
+        lastReport = System.nanoTime();
+        long d = dropped;
+        if (d != reportedDropped) {
+            Log.warning("Sample queue %s full, dropped %d samples (%d total)".formatted(name, d - reportedDropped, d));
+            reportedDropped = d;
+        }
+        if (failed != reportedFailed) {
+            Log.error("Sample consumer %s failed on %d samples (%d total), last: %s".formatted(name, failed - reportedFailed,
+                    failed, lastFailure));
+            reportedFailed = failed;
+            lastFailure = null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+
+// what the sampling loop of MouseLocator costs itself: how long MouseInfo.getPointerInfo()
+// takes, how many polls it takes to see the cursor move, how long handing a sample to the
+// consumers blocks the loop and how often the loop stalls. like SamplingScheduler everything is
+// recorded on the sampling thread and published once a second through volatile fields, so a
+// bad second in the numbers can be told apart from a bad second of the mouse
+public class SamplerMetrics {
+
+    // a gap between two polls this many times the sampling period is a stall
+    private static final int STALL_FACTOR = 4;
+    // gaps below this are never stalls, parking is not more precise than that on most systems
+    private static final long STALL_MIN_NANOS = 2_000_000;
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000;
+
+    private final Config config;
+
+    // the current report interval, polls per change are counts and not nanos but the
+    // histogram doesn't care
+    private final IntervalHistogram pointerCalls = new IntervalHistogram(), pollsPerChange = new IntervalHistogram(),
+            consumerCalls = new IntervalHistogram();
+    private long intervalStart = 0, lastPoll = 0, iterations = 0, intervalStalls = 0;
+
+    private volatile int loopRate = 0;
+    private volatile long pointerCallP50, pointerCallP99, pointerCallMax;
+    private volatile long pollsPerChangeP50, pollsPerChangeMax;
+    private volatile long consumerCallP50, consumerCallP99, consumerCallMax;
+    private volatile long stallsLastSecond = 0, stalls = 0, longestStall = 0;
+    private volatile boolean resetRequested = false;
+
+    public SamplerMetrics(Config config) {
+        this.config = config;
+    }
+
+    // one poll of the cursor that started at start and returned at end
+    public void poll(long start, long end) {
+        if (resetRequested) clear();
+        pointerCalls.record(end - start);
+        iterations++;
+        if (lastPoll != 0) {
+            long gap = start - lastPoll;
+            long period = 1_000_000_000L / Math.max(1, config.getSamplingRate());
+            if (gap >= Math.max(STALL_MIN_NANOS, STALL_FACTOR * period)) {
+                intervalStalls++;
+                stalls++;
+                if (gap > longestStall) longestStall = gap;
+            }
+        }
+        lastPoll = end;
+
+        if (intervalStart == 0) intervalStart = start;
+        long elapsed = end - intervalStart;
+        if (elapsed >= REPORT_INTERVAL_NANOS) publish(end, elapsed);
+    }
+
+    // the cursor moved after polls polls and the consumers took consumerNanos to accept it
+    public void changed(int polls, long consumerNanos) {
+        pollsPerChange.record(polls);
+        consumerCalls.record(consumerNanos);
+    }
+
+    // the loop was paused on purpose, the gap until the next poll is not a stall
+    public void restart() {
+        lastPoll = 0;
+    }
+
+    // totals start over with the next poll, safe to call from any thread
+    public void reset() {
+        resetRequested = true;
+    }
+
+    private void publish(long now, long elapsed) {
+        loopRate = (int) (iterations * 1_000_000_000L / elapsed);
+        pointerCallP50 = pointerCalls.getValueAtPercentile(50);
+        pointerCallP99 = pointerCalls.getValueAtPercentile(99);
+        pointerCallMax = pointerCalls.getMax();
+        pollsPerChangeP50 = pollsPerChange.getValueAtPercentile(50);
+        pollsPerChangeMax = pollsPerChange.getMax();
+        consumerCallP50 = consumerCalls.getValueAtPercentile(50);
+        consumerCallP99 = consumerCalls.getValueAtPercentile(99);
+        consumerCallMax = consumerCalls.getMax();
+        stallsLastSecond = intervalStalls;
+
+        intervalStart = now;
+        iterations = 0;
+        intervalStalls = 0;
+        pointerCalls.reset();
+        pollsPerChange.reset();
+        consumerCalls.reset();
+    }
+
+    private void clear() {
+        resetRequested = false;
+        stalls = 0;
+        longestStall = 0;
+    }
+
+    // loop iterations over the last second
+    public int getLoopRate() {
+        return loopRate;
+    }
+
+    // nanos, over the last second
+    public long getPointerCallP50() {
+        return pointerCallP50;
+    }
+
+    public long getPointerCallP99() {
+        return pointerCallP99;
+    }
+
+    public long getPointerCallMax() {
+        return pointerCallMax;
+    }
+
+    // polls from one change of the cursor position to the next, over the last second
+    public long getPollsPerChangeP50() {
+        return pollsPerChangeP50;
+    }
+
+    public long getPollsPerChangeMax() {
+        return pollsPerChangeMax;
+    }
+
+    // nanos the sampling thread spent handing a sample to the consumers, over the last second
+    public long getConsumerCallP50() {
+        return consumerCallP50;
+    }
+
+    public long getConsumerCallP99() {
+        return consumerCallP99;
+    }
+
+    public long getConsumerCallMax() {
+        return consumerCallMax;
+    }
+
+    public long getStallsLastSecond() {
+        return stallsLastSecond;
+    }
+
+    // since the start or the last reset
+    public long getStalls() {
+        return stalls;
+    }
+
+    public long getLongestStall() {
+        return longestStall;
+    }
+}
@@ -0,0 +1,117 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.locks.LockSupport;
+
+// Decides how long the sampling loop waits between two polls, and measures what that costs.
+//   SPIN       poll back to back, only hinting the cpu with Thread.onSpinWait
+//   SPIN_PARK  spin while the cursor moves, park for one period at the target rate once it
+//              has not moved for a while
+//   PERIODIC   park until the next deadline of a fixed period at the target rate
+// The achieved loop rate, the cpu time of the sampling thread and the jitter of the loop
+// interval are published once a second.
+public class SamplingScheduler {
+
+    public static final int STRATEGY_SPIN = 0, STRATEGY_SPIN_PARK = 1, STRATEGY_PERIODIC = 2;
+    public static final String[] STRATEGY_NAMES = {"spin", "spin-park", "periodic"};
+
+    // polls without a change before SPIN_PARK starts parking
+    private static final int IDLE_POLLS_BEFORE_PARK = 2000;
+    private static final long REPORT_INTERVAL_NANOS = 1000000000;
+
+    private final Config config;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private long deadline = 0;
+    private int idlePolls = 0;
+
+    // measurement of the current report interval
+    private long intervalStart = 0, intervalCpuStart = 0, lastPoll = 0, polls = 0;
+    private double intervalSum = 0, intervalSquareSum = 0;
+    private long maxInterval = 0;
+
+    private volatile int achievedRate = 0;
+    private volatile float cpuUsage = 0, jitterMicros = 0, maxIntervalMicros = 0;
+
+    public SamplingScheduler(Config config) {
+        this.config = config;
+    }
+
+    // called by the sampling thread after every poll
+    public void awaitNext(boolean changed) {
+        long now = System.nanoTime();
+        measure(now);
+
+        long period = 1000000000L / Math.max(1, config.getSamplingRate());
+        switch (config.getSamplingStrategy()) {
+            case STRATEGY_SPIN_PARK -> {
+                if (changed) idlePolls = 0;
+                else idlePolls++;
+                if (idlePolls > IDLE_POLLS_BEFORE_PARK) LockSupport.parkNanos(period);
+                else Thread.onSpinWait();
+            }
+            case STRATEGY_PERIODIC -> {
+                deadline += period;
+                // fell behind by more than a period (e.g. after a pause), start a new schedule
+                if (now - deadline > period) deadline = now + period;
+                long wait = deadline - now;
+                if (wait > 0) LockSupport.parkNanos(wait);
+            }
+            default -> Thread.onSpinWait();
+        }
+    }
+
+    private void measure(long now) {
+        if (intervalStart == 0) {
+            intervalStart = now;
+            intervalCpuStart = threadMXBean.getCurrentThreadCpuTime();
+        } else {
+            long interval = now - lastPoll;
+            intervalSum += interval;
+            intervalSquareSum += (double) interval * interval;
+            if (interval > maxInterval) maxInterval = interval;
+            polls++;
+        }
+        lastPoll = now;
+
+        long elapsed = now - intervalStart;
+        if (elapsed >= REPORT_INTERVAL_NANOS) {
+            long cpu = threadMXBean.getCurrentThreadCpuTime();
+            achievedRate = (int) (polls * 1000000000L / elapsed);
+            cpuUsage = (cpu - intervalCpuStart) * 100f / elapsed;
+            if (polls > 0) {
+                double mean = intervalSum / polls;
+                jitterMicros = (float) (Math.sqrt(Math.max(0, intervalSquareSum / polls - mean * mean)) / 1000);
+            }
+            maxIntervalMicros = maxInterval / 1000f;
+            intervalStart = now;
+            intervalCpuStart = cpu;
+            polls = 0;
+            intervalSum = 0;
+            intervalSquareSum = 0;
+            maxInterval = 0;
+        }
+    }
+
+    // polls per second the loop actually managed over the last second
+    public int getAchievedRate() {
+        return achievedRate;
+    }
+
+    // cpu time of the sampling thread as a percentage of one core
+    public float getCpuUsage() {
+        return cpuUsage;
+    }
+
+    // standard deviation of the time between polls
+    public float getJitterMicros() {
+        return jitterMicros;
+    }
+
+    public float getMaxIntervalMicros() {
+        return maxIntervalMicros;
+    }
+}
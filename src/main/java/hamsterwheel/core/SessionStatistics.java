@@ -0,0 +1,149 @@
+package hamsterwheel.core;
+
+// the session statistics shown in the STATISTICS panel, computed from the sample stream alone
+// (sample timestamps instead of the wall clock) so the GUI and the headless analysis agree
+public class SessionStatistics {
+
+    public static final long NANOS_TO_STATIONARY = 1000000000;
+    public static final int INTERVAL_WINDOW_SECONDS = 10;
+
+    private int pollingRate, maxPollingRate = 0, pollingRateClass = 0, avgPollingRate = 0, longestJump = 0,
+            shortestJump = Integer.MAX_VALUE, lastJump;
+    private int[] last4pollingRates = new int[4];
+    private int pollingRateSamples = 0;
+
+    private int lastButtons = 0;
+    private long samples = 0;
+    private final ClickTimer clickTimer = new ClickTimer();
+    private final SlidingIntervalHistogram intervals = new SlidingIntervalHistogram(INTERVAL_WINDOW_SECONDS);
+    private final Kinematics kinematics = new Kinematics();
+
+    public void handle(MouseUpdate mouseUpdate) {
+        long time = mouseUpdate.getTime();
+        if (mouseUpdate.getButtonsPressed() != lastButtons) {
+            clickTimer.buttonsChanged(lastButtons, mouseUpdate.getButtonsPressed(), time);
+            lastButtons = mouseUpdate.getButtonsPressed();
+        }
+        if (mouseUpdate.hasPrevious()) {
+            intervals.record(time, mouseUpdate.getNanosSinceLastUpdate());
+            calculateJump(mouseUpdate.getX(), mouseUpdate.getY(), mouseUpdate.getPreviousX(), mouseUpdate.getPreviousY());
+        }
+        kinematics.update(mouseUpdate);
+        this.pollingRate = mouseUpdate.getPollingRate();
+        if (pollingRate > maxPollingRate) maxPollingRate = pollingRate;
+        calculateAveragePollingRate(pollingRate);
+        calculatePollingRateClass(pollingRate);
+        samples++;
+    }
+
+    // called when the cursor has not moved for NANOS_TO_STATIONARY
+    public void markStationary() {
+        kinematics.markStationary();
+    }
+
+    public void reset() {
+        avgPollingRate = 0;
+        shortestJump = Integer.MAX_VALUE;
+        maxPollingRate = 0;
+        pollingRateClass = 0;
+        longestJump = 0;
+        kinematics.reset();
+        intervals.reset();
+    }
+
+    private void calculateJump(int x, int y, int previousX, int previousY) {
+        float dx = Math.abs(x - previousX);
+        float dy = Math.abs(y - previousY);
+        int dist = (int) Math.sqrt(dx * dx + dy * dy);
+        lastJump = dist;
+        if (dist > longestJump) longestJump = dist;
+        if (dist < shortestJump) shortestJump = dist;
+    }
+
+    private void calculatePollingRateClass(int mouseUpdateFrequency) {
+        int pollRateClassLimit = 180;
+        int pollRateClass = 125;
+
+        while (true) {
+            if (mouseUpdateFrequency < pollRateClassLimit) {
+                if (pollRateClass > this.pollingRateClass) this.pollingRateClass = pollRateClass;
+                else break;
+            } else {
+                pollRateClassLimit *= 2;
+                pollRateClass *= 2;
+            }
+        }
+    }
+
+    private void calculateAveragePollingRate(int mouseUpdateFrequency) {
+        last4pollingRates[pollingRateSamples % last4pollingRates.length] = mouseUpdateFrequency;
+        pollingRateSamples++;
+        int count = Math.min(pollingRateSamples, last4pollingRates.length);
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += last4pollingRates[i];
+        }
+        avgPollingRate = sum / count;
+    }
+
+    public int getPollingRate() {
+        return pollingRate;
+    }
+
+    public int getMaxPollingRate() {
+        return maxPollingRate;
+    }
+
+    public int getAvgPollingRate() {
+        return avgPollingRate;
+    }
+
+    public int getPollingRateClass() {
+        return pollingRateClass;
+    }
+
+    public int getLongestJump() {
+        return longestJump;
+    }
+
+    // 0 until there has been a jump
+    public int getShortestJump() {
+        return shortestJump == Integer.MAX_VALUE ? 0 : shortestJump;
+    }
+
+    public int getLastJump() {
+        return lastJump;
+    }
+
+    // px/s, from the sample timestamps
+    public int getFastestMovement() {
+        return (int) kinematics.getPeakVelocity();
+    }
+
+    // px/s2
+    public int getCurrentAcceleration() {
+        return (int) kinematics.getAcceleration();
+    }
+
+    public int getHighestAcceleration() {
+        return (int) kinematics.getPeakAcceleration();
+    }
+
+    // velocity and acceleration per axis, smoothed over Kinematics.DEFAULT_WINDOW_NANOS
+    public Kinematics getKinematics() {
+        return kinematics;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    // intervals between consecutive samples, for the last INTERVAL_WINDOW_SECONDS and the whole session
+    public SlidingIntervalHistogram getIntervals() {
+        return intervals;
+    }
+
+    public ClickTimer getClickTimer() {
+        return clickTimer;
+    }
+}
@@ -0,0 +1,60 @@
+package hamsterwheel.core;
+
+// interval histograms for the last few seconds of sample time: one histogram per second in a
+// ring, a window is the sum of its newest slots. slots are rotated by sample timestamps, so a
+// window keeps showing the last movement while the mouse stands still
+public class SlidingIntervalHistogram {
+
+    public static final long SLOT_NANOS = 1_000_000_000;
+    // gaps this long are the mouse resting, not the report interval
+    public static final long IDLE_GAP_NANOS = 100_000_000;
+
+    private final IntervalHistogram[] slots;
+    private final IntervalHistogram total = new IntervalHistogram();
+    private long currentSlot = Long.MIN_VALUE;
+
+    public SlidingIntervalHistogram(int seconds) {
+        slots = new IntervalHistogram[seconds];
+        for (int i = 0; i < seconds; i++) slots[i] = new IntervalHistogram();
+    }
+
+    // called by the single consumer thread with the sample time and the interval before it
+    public void record(long time, long interval) {
+        if (interval <= 0 || interval >= IDLE_GAP_NANOS) return;
+        long slot = time / SLOT_NANOS;
+        if (slot != currentSlot) {
+            // clear every slot skipped since the last sample, at most the whole ring
+            long from = currentSlot == Long.MIN_VALUE ? slot : Math.max(currentSlot + 1, slot - slots.length + 1);
+            for (long s = from; s <= slot; s++) slots[(int) Math.floorMod(s, (long) slots.length)].reset();
+            currentSlot = slot;
+        }
+        slots[(int) Math.floorMod(slot, (long) slots.length)].record(interval);
+        total.record(interval);
+    }
+
+    // merges the newest seconds into target, the current (partial) second included
+    public IntervalHistogram window(int seconds, IntervalHistogram target) {
+        target.reset();
+        long slot = currentSlot;
+        if (slot == Long.MIN_VALUE) return target;
+        for (int i = 0; i < Math.min(seconds, slots.length); i++) {
+            target.add(slots[(int) Math.floorMod(slot - i, (long) slots.length)]);
+        }
+        return target;
+    }
+
+    // every interval since the last reset
+    public IntervalHistogram getTotal() {
+        return total;
+    }
+
+    public int getSeconds() {
+        return slots.length;
+    }
+
+    public void reset() {
+        for (IntervalHistogram slot : slots) slot.reset();
+        total.reset();
+        currentSlot = Long.MIN_VALUE;
+    }
+}
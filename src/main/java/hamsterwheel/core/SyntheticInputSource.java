@@ -0,0 +1,224 @@
+package hamsterwheel.core;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.util.Log;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Deterministic fake mouse for load testing the pipeline at rates real hardware can't reach.
+// Reports follow a motion path at a set report rate with jittered intervals, optional clicks,
+// and injected skips (a report that never arrives) and jumps (a report that lands far off the
+// path). The same settings and seed always produce the same sample stream. Timestamps are
+// computed from the schedule, so in fast mode the stream is identical, just not paced.
+public class SyntheticInputSource extends AbstractInputSource {
+
+    public static final String[] PATHS = {"circle", "line", "zigzag", "random"};
+
+    // parsed from "rate=8000,jitter=20,path=circle,..." on the command line
+    public static class Settings {
+        int rate = 1000, speed = 2000, radius = 300, jumpDistance = 200;
+        float jitterMicros = 0, skipChance = 0, jumpChance = 0, durationSeconds = 0;
+        float clickIntervalMillis = 0, clickDurationMillis = 80, rightClickDelayMillis = -1;
+        boolean gaussianJitter = true, realTime = true;
+        String path = "circle";
+        long seed = 1;
+
+        public static Settings parse(String spec) {
+            Settings settings = new Settings();
+            if (spec == null || spec.isBlank()) return settings;
+            for (String option : spec.split(",")) {
+                String[] keyValue = option.split("=", 2);
+                String key = keyValue[0].trim(), value = keyValue.length > 1 ? keyValue[1].trim() : "";
+                switch (key) {
+                    case "rate" -> settings.rate = Integer.parseInt(value);
+                    case "speed" -> settings.speed = Integer.parseInt(value);
+                    case "radius" -> settings.radius = Integer.parseInt(value);
+                    case "jitter" -> settings.jitterMicros = Float.parseFloat(value);
+                    case "distribution" -> settings.gaussianJitter = !value.equals("uniform");
+                    case "path" -> settings.path = value;
+                    case "clicks" -> settings.clickIntervalMillis = Float.parseFloat(value);
+                    case "clickduration" -> settings.clickDurationMillis = Float.parseFloat(value);
+                    case "rightclickdelay" -> settings.rightClickDelayMillis = Float.parseFloat(value);
+                    case "skips" -> settings.skipChance = Float.parseFloat(value);
+                    case "jumps" -> settings.jumpChance = Float.parseFloat(value);
+                    case "jumpdistance" -> settings.jumpDistance = Integer.parseInt(value);
+                    case "duration" -> settings.durationSeconds = Float.parseFloat(value);
+                    case "seed" -> settings.seed = Long.parseLong(value);
+                    case "fast" -> settings.realTime = false;
+                    default -> Log.warning("Unknown synthetic input option %s".formatted(key));
+                }
+            }
+            return settings;
+        }
+
+        @Override
+        public String toString() {
+            return "%d Hz, %.1f us %s jitter, %s path at %d px/s, skips %.4f, jumps %.4f, %s".formatted(rate, jitterMicros,
+                    gaussianJitter ? "gaussian" : "uniform", path, speed, skipChance, jumpChance, realTime ? "real time" : "fast");
+        }
+    }
+
+    private final Settings settings;
+    private final int centerX, centerY;
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    private final Random random;
+    private volatile long reports = 0, skipped = 0, jumps = 0;
+
+    // random walk state
+    private double walkX, walkY, walkAngle, lastWalk = 0;
+
+    public SyntheticInputSource(Settings settings, Consumer<MouseUpdate> positionConsumer, Config config, int centerX, int centerY) {
+        super("SyntheticInputSource", positionConsumer, config);
+        this.settings = settings;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.random = new Random(settings.seed);
+        this.walkX = centerX;
+        this.walkY = centerY;
+    }
+
+    @Override
+    public void run() {
+        Log.info("Synthetic input: %s".formatted(settings));
+        long period = 1000000000L / settings.rate;
+        long duration = (long) (settings.durationSeconds * 1000000000L);
+        long startNanos = System.nanoTime(), pausedNanos = 0;
+        long offset = 0, secondStart = 0;
+        int reportsThisSecond = 0, currentPollingRate = 0;
+        boolean hasSample = false;
+
+        while (!Thread.interrupted() && (duration == 0 || offset < duration)) {
+            if (paused) {
+                long pauseStart = System.nanoTime();
+                if (!awaitUnpaused()) break;
+                pausedNanos += System.nanoTime() - pauseStart;
+            }
+
+            offset += Math.max(1000, period + jitter());
+            if (random.nextFloat() < settings.skipChance) {
+                skipped++;
+                continue;
+            }
+
+            double seconds = offset / 1000000000.0;
+            int x = (int) Math.round(pathX(seconds)), y = (int) Math.round(pathY(seconds));
+            if (random.nextFloat() < settings.jumpChance) {
+                double angle = random.nextDouble() * Math.PI * 2;
+                x += (int) (Math.cos(angle) * settings.jumpDistance);
+                y += (int) (Math.sin(angle) * settings.jumpDistance);
+                jumps++;
+            }
+            long time = startNanos + pausedNanos + offset;
+            updateButtons(offset, time);
+
+            if (offset - secondStart >= 1000000000L) {
+                currentPollingRate = reportsThisSecond;
+                reportsThisSecond = 0;
+                secondStart = offset;
+            }
+            reportsThisSecond++;
+
+            if (settings.realTime) awaitTime(time);
+            mouseUpdate.set(time, x, y, config.getDpi(), currentPollingRate, buttonsPressed);
+            mouseUpdate.setHasPrevious(hasSample);
+            hasSample = true;
+            reports++;
+            publish(mouseUpdate);
+        }
+        long elapsed = System.nanoTime() - startNanos - pausedNanos;
+        Log.info("Synthetic input finished, %d reports (%d skipped, %d jumps) in %.1f ms (%.0f reports/sec)".formatted(
+                reports, skipped, jumps, elapsed / 1000000f, reports / (elapsed / 1000000000.0)));
+    }
+
+    private long jitter() {
+        if (settings.jitterMicros <= 0) return 0;
+        double sample = settings.gaussianJitter ? random.nextGaussian() : random.nextDouble() * 2 - 1;
+        return (long) (sample * settings.jitterMicros * 1000);
+    }
+
+    private double pathX(double seconds) {
+        double distance = settings.speed * seconds;
+        switch (settings.path) {
+            case "line":
+                return centerX - settings.radius + triangle(distance, 2 * settings.radius);
+            case "zigzag":
+                return centerX - settings.radius + triangle(distance, 2 * settings.radius);
+            case "random":
+                walk(seconds);
+                return walkX;
+            default:
+                return centerX + settings.radius * Math.cos(distance / settings.radius);
+        }
+    }
+
+    private double pathY(double seconds) {
+        double distance = settings.speed * seconds;
+        switch (settings.path) {
+            case "line":
+                return centerY;
+            case "zigzag":
+                return centerY - settings.radius / 2.0 + triangle(distance / 8, settings.radius);
+            case "random":
+                return walkY;
+            default:
+                return centerY + settings.radius * Math.sin(distance / settings.radius);
+        }
+    }
+
+    // heading drifts randomly, the walk is pulled back towards the center when it strays too far
+    private void walk(double seconds) {
+        double dt = seconds - lastWalk;
+        lastWalk = seconds;
+        walkAngle += random.nextGaussian() * 0.05;
+        if (Math.hypot(walkX - centerX, walkY - centerY) > settings.radius) {
+            walkAngle = Math.atan2(centerY - walkY, centerX - walkX);
+        }
+        walkX += Math.cos(walkAngle) * settings.speed * dt;
+        walkY += Math.sin(walkAngle) * settings.speed * dt;
+    }
+
+    // goes 0 -> length -> 0 as distance grows
+    private static double triangle(double distance, double length) {
+        double phase = distance % (2 * length);
+        return phase < length ? phase : 2 * length - phase;
+    }
+
+    private void updateButtons(long offset, long time) {
+        if (settings.clickIntervalMillis <= 0) return;
+        long interval = (long) (settings.clickIntervalMillis * 1000000);
+        long sinceClick = offset % interval;
+        int buttons = 0;
+        if (sinceClick < settings.clickDurationMillis * 1000000) buttons |= 1 << ClickTimer.LEFT_BUTTON;
+        if (settings.rightClickDelayMillis >= 0) {
+            long sinceRightClick = sinceClick - (long) (settings.rightClickDelayMillis * 1000000);
+            if (sinceRightClick >= 0 && sinceRightClick < settings.clickDurationMillis * 1000000) buttons |= 1 << ClickTimer.RIGHT_BUTTON;
+        }
+        if (buttons != buttonsPressed) {
+            clickTimer.buttonsChanged(buttonsPressed, buttons, time);
+            buttonsPressed = buttons;
+        }
+    }
+
+    // parks while the next report is far off and spins for the last stretch
+    private static void awaitTime(long time) {
+        long wait;
+        while ((wait = time - System.nanoTime()) > 0) {
+            if (wait > 2000000) LockSupport.parkNanos(wait - 1000000);
+            else Thread.onSpinWait();
+        }
+    }
+
+    public long getReports() {
+        return reports;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getJumps() {
+        return jumps;
+    }
+}
@@ -0,0 +1,88 @@
+package hamsterwheel.gui;
+
+import hamsterwheel.util.Log;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+
+// draws frames straight into a Canvas through a BufferStrategy instead of going through
+// Swing's repaint on the EDT. render() is called from the FrameScheduler thread, so a frame
+// is on screen as soon as it is drawn. page flipping is asked for first, if the graphics
+// configuration can't flip the strategy blits its back buffer instead. either way the back
+// buffer is an accelerated VolatileImage that has to be redrawn when its contents get lost
+public class ActiveRenderer {
+
+    private static final int BUFFERS = 2;
+
+    private final Canvas canvas = new Canvas();
+    private final Consumer<Graphics2D> painter;
+    private BufferStrategy strategy;
+    private boolean flipping, failed;
+
+    public ActiveRenderer(Consumer<Graphics2D> painter) {
+        this.painter = painter;
+        // nothing but the render thread draws into the canvas
+        canvas.setIgnoreRepaint(true);
+        canvas.setFocusable(false);
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    // true once the strategy could not be created, the caller should fall back to passive painting
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    public boolean isFlipping() {
+        return flipping;
+    }
+
+    // returns false if the canvas isn't on screen yet or the strategy couldn't be created
+    public boolean render() {
+        if (!canvas.isDisplayable() || canvas.getWidth() <= 0 || canvas.getHeight() <= 0) return false;
+        if (strategy == null && !createStrategy()) return false;
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    painter.accept(g2d);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+            // flush the pipeline so the frame goes out now and not with the next one
+            Toolkit.getDefaultToolkit().sync();
+        } while (strategy.contentsLost());
+        return true;
+    }
+
+    public void dispose() {
+        if (strategy != null) strategy.dispose();
+        strategy = null;
+    }
+
+    private boolean createStrategy() {
+        try {
+            BufferCapabilities flip = new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED);
+            try {
+                canvas.createBufferStrategy(BUFFERS, flip);
+                flipping = true;
+            } catch (AWTException e) {
+                canvas.createBufferStrategy(BUFFERS);
+                flipping = false;
+            }
+            strategy = canvas.getBufferStrategy();
+            Log.info("Active rendering with %s, %d buffers".formatted(flipping ? "page flipping" : "blitting", BUFFERS));
+            return true;
+        } catch (RuntimeException e) {
+            Log.error("Failed to create buffer strategy: %s".formatted(e.getMessage()));
+            failed = true;
+            return false;
+        }
+    }
+}
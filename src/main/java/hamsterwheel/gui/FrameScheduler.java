@@ -0,0 +1,143 @@
+package hamsterwheel.gui;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.core.SlidingIntervalHistogram;
+import hamsterwheel.util.Log;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// asks for a repaint only when something changed since the last frame, at most once per
+// 1 / maxFPS measured against a nanosecond deadline, and never while the previous frame is
+// still waiting to be painted. with nothing changing it only wakes up for a heartbeat frame
+// so the slower readouts keep updating. frames are counted when they are actually painted.
+// the presenter either asks Swing for a repaint or, with active rendering, draws the frame
+// right away on this thread
+public class FrameScheduler {
+
+    private static final long HEARTBEAT_NANOS = 1_000_000_000;
+    // a repaint that never arrived, e.g. the window is minimized, doesn't block the next one forever
+    private static final long PENDING_TIMEOUT_NANOS = 250_000_000;
+    private static final long FPS_WINDOW_NANOS = 1_000_000_000;
+    // the paint thread may sleep this much less than asked and spin the rest
+    private static final long SPIN_NANOS = 100_000;
+
+    private final Runnable presenter;
+    private final Config config;
+    private final BooleanSupplier animating;
+    private final Thread thread;
+
+    private volatile boolean running = true, dirty = true, parked = false, framePending = false;
+    private volatile long requested = 0, presented = 0;
+    private volatile int fps = 0;
+    private long lastRequest = 0;
+
+    // only touched by the thread that paints
+    private final SlidingIntervalHistogram frameTimes = new SlidingIntervalHistogram(10);
+    private long fpsWindowStart = System.nanoTime(), fpsWindowFrames = 0;
+
+    // animating is asked before going idle, while it returns true frames keep coming at maxFPS
+    public FrameScheduler(Runnable presenter, Config config, BooleanSupplier animating) {
+        this.presenter = presenter;
+        this.config = config;
+        this.animating = animating;
+        thread = new Thread(this::run, "FrameScheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // cheap enough to call for every sample: only the first call after a frame wakes the scheduler
+    public void requestFrame() {
+        if (dirty) return;
+        dirty = true;
+        if (parked) LockSupport.unpark(thread);
+    }
+
+    // called at the end of paint with the time paint started
+    public void framePresented(long paintStart) {
+        long now = System.nanoTime();
+        framePending = false;
+        presented++;
+        frameTimes.record(now, now - paintStart);
+        fpsWindowFrames++;
+        if (now - fpsWindowStart >= FPS_WINDOW_NANOS) {
+            fps = (int) Math.round(fpsWindowFrames * 1e9 / (now - fpsWindowStart));
+            fpsWindowStart = now;
+            fpsWindowFrames = 0;
+        }
+    }
+
+    // returns once the scheduler thread has ended, unless called from that thread itself
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread) return;
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // frames painted in the last second
+    public int getFps() {
+        return System.nanoTime() - fpsWindowStart > 2 * FPS_WINDOW_NANOS ? 0 : fps;
+    }
+
+    public long getRequested() {
+        return requested;
+    }
+
+    public long getPresented() {
+        return presented;
+    }
+
+    // how long paint took, for the last 10 seconds of frames
+    public SlidingIntervalHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    private void run() {
+        long deadline = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (!dirty && !animating.getAsBoolean()) {
+                // idle until a sample arrives or the heartbeat is due
+                parked = true;
+                if (!dirty) LockSupport.parkNanos(lastRequest + HEARTBEAT_NANOS - now);
+                parked = false;
+                if (!dirty && System.nanoTime() - lastRequest < HEARTBEAT_NANOS) continue;
+            }
+
+            awaitDeadline(deadline);
+            now = System.nanoTime();
+            if (framePending && now - lastRequest < PENDING_TIMEOUT_NANOS) {
+                // the last frame is still queued, new samples will be in it or in the next one
+                LockSupport.parkNanos(SPIN_NANOS);
+                continue;
+            }
+
+            dirty = false;
+            framePending = true;
+            lastRequest = now;
+            requested++;
+            try {
+                presenter.run();
+            } catch (RuntimeException e) {
+                Log.error("Failed to present frame: %s".formatted(e));
+            }
+
+            // a late frame moves the schedule instead of causing a burst of frames to catch up
+            long frameNanos = 1_000_000_000L / Math.max(1, config.getMaxFPS());
+            deadline = Math.max(deadline + frameNanos, now);
+        }
+    }
+
+    private void awaitDeadline(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+            else Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package hamsterwheel.gui;
+
+import hamsterwheel.core.IntervalHistogram;
+import hamsterwheel.core.SlidingIntervalHistogram;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// the F6 overlay: a histogram of report intervals and a strip of the polling rate over time.
+// both live in cached images that are only touched where something changed, the strip gets
+// one new column per COLUMN_NANOS of sample time and scrolls by moving where it is cut
+public class IntervalOverlay {
+
+    // one strip column per 50 ms of samples
+    private static final long COLUMN_NANOS = 50_000_000;
+    private static final int COLUMN_BACKLOG = 4096;
+    private static final long HISTOGRAM_REFRESH_NANOS = 100_000_000;
+    // both axes are log2, the strip goes from 62.5 Hz to 16 kHz and the histogram from 31.25 us to 16 ms
+    private static final double MIN_RATE = 62.5, MAX_RATE = 16000;
+    private static final double MIN_INTERVAL = 31250, MAX_INTERVAL = 16000000;
+    private static final int[] RATE_GUIDES = {125, 250, 500, 1000, 2000, 4000, 8000};
+
+    // completed columns, written by the consumer thread and drawn by the paint thread
+    private final int[] columnMinRates = new int[COLUMN_BACKLOG], columnMaxRates = new int[COLUMN_BACKLOG],
+            columnRates = new int[COLUMN_BACKLOG];
+    private volatile long columnCount = 0, clearedColumns = 0;
+    // column being filled
+    private long currentColumn = Long.MIN_VALUE, columnMinInterval, columnMaxInterval;
+    private int columnSamples;
+
+    private final IntervalHistogram merged = new IntervalHistogram();
+    private BufferedImage stripImage, histogramImage;
+    private int[] barHeights = new int[0];
+    private long[] barCounts = new long[0];
+    private Color backgroundColor, bandColor, rateColor, barColor, guideColor;
+    private long drawnColumns, lastHistogramRefresh;
+    private int stripCursor, width, height;
+    // the label under the histogram, formatted again only when the window length changes
+    private String intervalsLabel;
+    private int intervalsLabelSeconds = -1;
+    private boolean darkMode;
+    private volatile boolean invalidated = true;
+
+    // called with every sample on the gui consumer thread
+    public void record(long time, long interval) {
+        long column = time / COLUMN_NANOS;
+        if (column != currentColumn) {
+            if (currentColumn != Long.MIN_VALUE) {
+                finishColumn();
+                // the mouse stood still in between, leave at most a screen of empty columns
+                long gap = Math.min(column - currentColumn - 1, COLUMN_BACKLOG);
+                for (long i = 0; i < gap; i++) publishColumn(0, 0, 0);
+            }
+            currentColumn = column;
+            columnSamples = 0;
+            columnMinInterval = Long.MAX_VALUE;
+            columnMaxInterval = 0;
+        }
+        columnSamples++;
+        if (interval > 0 && interval < SlidingIntervalHistogram.IDLE_GAP_NANOS) {
+            if (interval < columnMinInterval) columnMinInterval = interval;
+            if (interval > columnMaxInterval) columnMaxInterval = interval;
+        }
+    }
+
+    // clears both images on the next paint
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    // starts the strip over, columns recorded so far are not drawn again
+    public void reset() {
+        clearedColumns = columnCount;
+        invalidate();
+    }
+
+    public void paint(Graphics2D g2d, int x, int y, int width, int height, boolean darkMode, Color textColor, Font font,
+                      SlidingIntervalHistogram intervals) {
+        if (invalidated || width != this.width || height != this.height || darkMode != this.darkMode) {
+            createImages(width, height, darkMode);
+        }
+        drawNewColumns();
+        if (System.nanoTime() - lastHistogramRefresh >= HISTOGRAM_REFRESH_NANOS) {
+            drawHistogram(intervals);
+            lastHistogramRefresh = System.nanoTime();
+        }
+
+        // oldest column first: the part right of the cursor, then the part left of it
+        g2d.drawImage(stripImage, x, y, x + width - stripCursor, y + height, stripCursor, 0, width, height, null);
+        g2d.drawImage(stripImage, x + width - stripCursor, y, x + width, y + height, 0, 0, stripCursor, height, null);
+        drawRateGuides(g2d, x, y);
+        g2d.drawImage(histogramImage, x, y + height + 4, null);
+
+        g2d.setFont(font);
+        g2d.setColor(textColor);
+        int lineHeight = g2d.getFontMetrics().getHeight();
+        g2d.drawString("POLLING RATE   62.5 Hz - 16 kHz   F6", x, y - 2);
+        if (intervals.getSeconds() != intervalsLabelSeconds) {
+            intervalsLabelSeconds = intervals.getSeconds();
+            intervalsLabel = "INTERVALS   31 us - 16 ms   last %d s".formatted(intervalsLabelSeconds);
+        }
+        g2d.drawString(intervalsLabel, x, y + 2 * height + 4 + lineHeight);
+    }
+
+    private void finishColumn() {
+        int rate = (int) (columnSamples * 1_000_000_000L / COLUMN_NANOS);
+        int minRate = columnMaxInterval == 0 ? rate : (int) (1_000_000_000L / columnMaxInterval);
+        int maxRate = columnMinInterval == Long.MAX_VALUE ? rate : (int) (1_000_000_000L / columnMinInterval);
+        publishColumn(rate, minRate, maxRate);
+    }
+
+    private void publishColumn(int rate, int minRate, int maxRate) {
+        int index = (int) (columnCount % COLUMN_BACKLOG);
+        columnRates[index] = rate;
+        columnMinRates[index] = minRate;
+        columnMaxRates[index] = maxRate;
+        columnCount++;
+    }
+
+    private void createImages(int width, int height, boolean darkMode) {
+        this.width = width;
+        this.height = height;
+        this.darkMode = darkMode;
+        invalidated = false;
+        stripImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        histogramImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        barHeights = new int[width];
+        barCounts = new long[width];
+        backgroundColor = darkMode ? new Color(110, 80, 100, 120) : new Color(210, 180, 200, 120);
+        bandColor = darkMode ? new Color(90, 110, 190) : new Color(150, 170, 230);
+        rateColor = darkMode ? Color.YELLOW : Color.ORANGE.darker();
+        barColor = darkMode ? new Color(219, 80, 235) : new Color(160, 40, 180);
+        guideColor = darkMode ? new Color(255, 255, 255, 50) : new Color(0, 0, 0, 50);
+        stripCursor = 0;
+        // start from the columns still in the backlog instead of an empty strip
+        drawnColumns = Math.max(clearedColumns, columnCount - width);
+        lastHistogramRefresh = 0;
+        Graphics2D g = histogramImage.createGraphics();
+        g.setBackground(backgroundColor);
+        g.clearRect(0, 0, width, height);
+        g.dispose();
+        g = stripImage.createGraphics();
+        g.setBackground(backgroundColor);
+        g.clearRect(0, 0, width, height);
+        g.dispose();
+    }
+
+    private void drawNewColumns() {
+        long count = columnCount;
+        if (count - drawnColumns > COLUMN_BACKLOG) drawnColumns = count - COLUMN_BACKLOG;
+        if (count - drawnColumns > width) drawnColumns = count - width;
+        if (drawnColumns == count) return;
+        Graphics2D g = stripImage.createGraphics();
+        g.setBackground(backgroundColor);
+        while (drawnColumns < count) {
+            int index = (int) (drawnColumns % COLUMN_BACKLOG);
+            g.clearRect(stripCursor, 0, 1, height);
+            if (columnRates[index] > 0) {
+                int top = rateToY(columnMaxRates[index]), bottom = rateToY(columnMinRates[index]);
+                g.setColor(bandColor);
+                g.fillRect(stripCursor, top, 1, bottom - top + 1);
+                g.setColor(rateColor);
+                g.fillRect(stripCursor, rateToY(columnRates[index]), 1, 2);
+            }
+            stripCursor = (stripCursor + 1) % width;
+            drawnColumns++;
+        }
+        g.dispose();
+    }
+
+    // only bars whose height changed are repainted
+    private void drawHistogram(SlidingIntervalHistogram intervals) {
+        intervals.window(intervals.getSeconds(), merged);
+        long[] columns = barCounts;
+        Arrays.fill(columns, 0);
+        long peak = 0;
+        for (int i = 0; i < IntervalHistogram.BUCKET_COUNT; i++) {
+            long count = merged.getBucketCount(i);
+            if (count == 0) continue;
+            int column = intervalToX(IntervalHistogram.midpointOf(i));
+            columns[column] += count;
+            if (columns[column] > peak) peak = columns[column];
+        }
+        Graphics2D g = histogramImage.createGraphics();
+        g.setBackground(backgroundColor);
+        g.setColor(barColor);
+        for (int column = 0; column < width; column++) {
+            int barHeight = peak == 0 ? 0 : (int) Math.ceil(columns[column] * (double) (height - 1) / peak);
+            if (barHeight == barHeights[column]) continue;
+            g.clearRect(column, 0, 1, height);
+            if (barHeight > 0) g.fillRect(column, height - barHeight, 1, barHeight);
+            barHeights[column] = barHeight;
+        }
+        g.dispose();
+    }
+
+    private void drawRateGuides(Graphics2D g2d, int x, int y) {
+        g2d.setColor(guideColor);
+        for (int rate : RATE_GUIDES) g2d.drawLine(x, y + rateToY(rate), x + width - 1, y + rateToY(rate));
+    }
+
+    private int rateToY(int rate) {
+        double position = Math.log(Math.max(MIN_RATE, Math.min(MAX_RATE, rate)) / MIN_RATE) / Math.log(MAX_RATE / MIN_RATE);
+        return (int) Math.round((height - 1) * (1 - position));
+    }
+
+    private int intervalToX(long interval) {
+        double position = Math.log(Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, interval)) / MIN_INTERVAL) / Math.log(MAX_INTERVAL / MIN_INTERVAL);
+        return (int) Math.round((width - 1) * position);
+    }
+}
@@ -2,11 +2,10 @@ package hamsterwheel.gui;
 
 import hamsterwheel.config.Config;
 import hamsterwheel.core.Controller;
-import hamsterwheel.core.MouseLocator;
+import hamsterwheel.core.InputSource;
 import hamsterwheel.core.MouseUpdate;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
@@ -16,9 +15,9 @@ public class MainFrame extends JFrame {
     private static final Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
     private static MainPanel mainPanel = null;
 
-    public MainFrame(MouseLocator mouseLocator, MouseListener mouseListener, Config config) {
+    public MainFrame(InputSource inputSource, Config config) {
         try {
-            mainPanel = new MainPanel(mouseLocator, mouseListener, config);
+            mainPanel = new MainPanel(inputSource, config);
         } catch (AWTException e) {
             e.printStackTrace();
         }
@@ -45,6 +44,12 @@ public class MainFrame extends JFrame {
         setVisible(true);
     }
 
+    @Override
+    public void dispose() {
+        mainPanel.stop();
+        super.dispose();
+    }
+
     public void handleMouseUpdate(MouseUpdate mouseUpdate) {
         mainPanel.handlePosition(mouseUpdate);
     }
@@ -71,7 +76,7 @@ public class MainFrame extends JFrame {
         getContentPane().setCursor(blankCursor);
     }
 
-    public void addStatsLog(String s) {
+    public void addStatsLog(CharSequence s) {
         mainPanel.addStatsLog(s);
     }
 
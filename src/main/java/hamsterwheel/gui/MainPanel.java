@@ -1,183 +1,187 @@
 package hamsterwheel.gui;
 
 import hamsterwheel.config.Config;
+import hamsterwheel.core.Anomaly;
+import hamsterwheel.core.AnomalyDetector;
 import hamsterwheel.core.Controller;
-import hamsterwheel.core.MouseLocator;
+import hamsterwheel.core.DpiCalibration;
+import hamsterwheel.core.InputSource;
+import hamsterwheel.core.IntervalHistogram;
+import hamsterwheel.core.Kinematics;
 import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.core.SampleDispatcher;
+import hamsterwheel.core.SampleQueue;
+import hamsterwheel.core.SampleHistory;
+import hamsterwheel.core.SamplerMetrics;
+import hamsterwheel.core.SamplingScheduler;
+import hamsterwheel.core.SessionStatistics;
+import hamsterwheel.core.SlidingIntervalHistogram;
+import hamsterwheel.jfr.Events;
+import hamsterwheel.jfr.FrameEvent;
+import hamsterwheel.jfr.MotionEvent;
+import hamsterwheel.util.JvmMetrics;
 import hamsterwheel.util.Log;
+import hamsterwheel.util.Scheduler;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.font.TextAttribute;
-import java.text.AttributedString;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class MainPanel extends JPanel implements KeyListener {
 
-    private static final long NANOS_TO_STATIONARY = 1000000000;
-    private static final int COORDINATE_BACKLOG_LENGTH = 1000;
+    // only has to cover the samples between two frames and a redraw after resizing,
+    // the trail itself is kept in the TrailLayer images
+    private static final int COORDINATE_BACKLOG_LENGTH = 16384;
+    private static final double[] INTERVAL_PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] INTERVAL_ROWS = {
+            "│   p50               %8.3f ms     %8.3f ms       │",
+            "│   p90               %8.3f ms     %8.3f ms       │",
+            "│   p99               %8.3f ms     %8.3f ms       │",
+            "│   p99.9             %8.3f ms     %8.3f ms       │"};
+    private static final long FADE_ANIMATION_NANOS = 5_000_000_000L;
+    // inch/s2 to standard gravity
+    private static final double INCH_PER_S2_TO_G = 0.0254 / 9.80665;
+    private static final String[] CALIBRATION_ROWS = {
+            "│ %s  %%8d passes  %%8.1f CPI             │".formatted(DpiCalibration.AXIS_NAMES[0]),
+            "│ %s  %%8d passes  %%8.1f CPI             │".formatted(DpiCalibration.AXIS_NAMES[1])};
+    private static final String INTERVAL_MAX_ROW = "│   max               %8.3f ms     %8.3f ms       │";
 
     private Config config;
-    private MouseLocator mouseLocator;
+    private InputSource inputSource;
 
     private MouseUpdate latestUpdate = new MouseUpdate();
-    private Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+    private SessionStatistics statistics = new SessionStatistics();
+    private SampleHistory history = new SampleHistory(COORDINATE_BACKLOG_LENGTH);
+    // merged interval windows, only used by the paint thread
+    private IntervalHistogram lastSecondIntervals = new IntervalHistogram(), windowIntervals = new IntervalHistogram();
+    private IntervalOverlay intervalOverlay = new IntervalOverlay();
+    // rebuilt only when the UI multiplier changes
+    private Font intervalFont;
+    private int intervalFontMultiplier = 0;
+    private DpiCalibration calibration;
+    // the panels on the left and on the right, only changed lines are drawn again
+    private TextLayer leftText = new TextLayer(), rightText = new TextLayer();
+    private TrailLayer trailLayer;
+    private String droppedRow;
+    private FrameScheduler frameScheduler;
+    private volatile ActiveRenderer activeRenderer;
+    private final Scheduler.Group tasks = new Scheduler.Group("MainPanel");
+    private IntervalHistogram frameTimeWindow = new IntervalHistogram();
+    // the render harness draws without a screen, it gets the size of a common one
+    private Dimension screenSize = GraphicsEnvironment.isHeadless() ? new Dimension(1920, 1080) : Toolkit.getDefaultToolkit().getScreenSize();
     private int lineHeight;
 
     private Color cursorColor = Color.RED, cursorButtonPressedColor = Color.BLUE, coordinateColor = Color.decode("#db50eb"), coordinateButtonPressedColor = Color.BLUE,
             inchGridColor = Color.decode("#b33d8b"), pixelGridColor = Color.decode("#545fa8"), textColor = Color.BLACK, darkModeTextColor = Color.WHITE;
     private boolean stationary = true;
-    private int pollingRate, fps, repaintCounter = 0, maxPollingRate = 0, pollingRateClass = 0, avgPollingRate = 0, longestJump = 0, shortestJump = Integer.MAX_VALUE,
-            rgbCycle = 0, currentAcceleration = 0, highestAcceleration = 0, lastJump;
-    private long lastTimeMoved = System.nanoTime(), lastTimeStationary = System.nanoTime();
-
-    private List<Integer> last5pollingRates = new ArrayList<Integer>();
+    private int rgbCycle = 0;
+    private long lastTimeMoved = System.nanoTime();
 
     private List<String> statsLogs = Collections.synchronizedList(new ArrayList<>());
     private List<String> debugLogs = Collections.synchronizedList(new ArrayList<>());
 
 
-    public MainPanel(MouseLocator mouseLocator, MouseListener mouseListener, Config config) throws AWTException {
+    public MainPanel(InputSource inputSource, Config config) throws AWTException {
         setVisible(true);
         this.config = config;
-        this.mouseLocator = mouseLocator;
+        this.inputSource = inputSource;
+        this.trailLayer = new TrailLayer(coordinateColor, coordinateButtonPressedColor);
+        this.calibration = new DpiCalibration(config);
         lineHeight = (int) (4.5 * config.getUIMultiplier());
         this.setFocusable(true);
-        addMouseListener(mouseListener);
-        startPaintFrequencyCounterThread();
-        startPainterThread();
-        startRGBThread();
-        startStationaryTimer();
+        // only the AWT sampler learns about buttons from the window
+        if (inputSource instanceof MouseListener) addMouseListener((MouseListener) inputSource);
+        // fading needs frames for a while after the last movement even without new samples
+        if (config.isActiveRendering()) startActiveRendering();
+        frameScheduler = new FrameScheduler(this::present, config, () -> config.isFadeTrail()
+                && (config.isDrawTrail() || config.isDrawCoordinates())
+                && System.nanoTime() - lastTimeMoved < FADE_ANIMATION_NANOS);
+        startTasks();
     }
 
     public void handlePosition(MouseUpdate mouseUpdate) {
-        latestUpdate = mouseUpdate;
+        // the sampler reuses its update object, so keep a copy of the values
+        latestUpdate.copyFrom(mouseUpdate);
+        history.add(mouseUpdate.getTime(), mouseUpdate.getX(), mouseUpdate.getY(), mouseUpdate.getButtonsPressed());
         lastTimeMoved = System.nanoTime();
-        if (mouseUpdate.getPrevious() != null)
-            calculateJump(mouseUpdate.getPosition(), mouseUpdate.getPrevious().getPosition());
-        if (mouseUpdate.getPrevious() != null)
-            calculateAcceleration(mouseUpdate.getPosition(), mouseUpdate.getPrevious().getPosition());
-        this.pollingRate = mouseUpdate.getPollingRate();
-        if (pollingRate > maxPollingRate) maxPollingRate = pollingRate;
-        calculateAveragePollingRate(pollingRate);
-        calculatePollingRateClass(pollingRate);
-
-    }
-
-    private void startStationaryTimer() {
-        new Thread(() -> {
-            while (!Thread.interrupted()) {
-                if (System.nanoTime() - lastTimeMoved >= NANOS_TO_STATIONARY) {
-                    currentAcceleration = 0;
-                    stationary = true;
-                    lastTimeStationary = System.nanoTime();
-                } else {
-                    stationary = false;
-                }
-            }
-        }).start();
+        statistics.handle(mouseUpdate);
+        intervalOverlay.record(mouseUpdate.getTime(), mouseUpdate.getNanosSinceLastUpdate());
+        if (config.isShowCalibrationPanel()) calibration.update(mouseUpdate);
+        frameScheduler.requestFrame();
     }
 
-    private void calculateAcceleration(Point lastPos, Point prevPos) {
-        // TODO: need to rework this
-
-        float dx = Math.abs(lastPos.x - prevPos.x);
-        float dy = Math.abs(lastPos.y - prevPos.y);
-        int currentspeed = pollingRateClass * (int) Math.sqrt(dx * dx + dy * dy);
-        float dt = System.nanoTime() - lastTimeStationary;
-        // don't bother calculating acceleration for the first 20ms of movement
-        if (dt > 20000000) {
-            currentAcceleration = (int) (currentspeed / dt * 1000000000);
-            // don't check against highest accelaration if it's under 5000pxpss
-            if (currentAcceleration > 5000) {
-                if (currentAcceleration > highestAcceleration) highestAcceleration = currentAcceleration;
+    // both run on the shared Scheduler thread and are cancelled in stop()
+    private void startTasks() {
+        tasks.every(10, TimeUnit.MILLISECONDS, "stationary", () -> {
+            if (System.nanoTime() - lastTimeMoved >= DpiCalibration.PASS_GAP_NANOS && calibration.endPass()) {
+                frameScheduler.requestFrame();
             }
-        } else currentAcceleration = 0;
-    }
-
-    private void calculateJump(Point lastPos, Point prevPos) {
-        float dx = Math.abs(lastPos.x - prevPos.x);
-        float dy = Math.abs(lastPos.y - prevPos.y);
-        int dist = (int) Math.sqrt(dx * dx + dy * dy);
-        lastJump = dist;
-        if (dist > longestJump) longestJump = dist;
-        if (dist < shortestJump) shortestJump = dist;
-    }
-
-    private void calculatePollingRateClass(Integer mouseUpdateFrequency) {
-        int pollRateClassLimit = 180;
-        int pollRateClass = 125;
-
-        while (true) {
-            if (mouseUpdateFrequency < pollRateClassLimit) {
-                if (pollRateClass > this.pollingRateClass) this.pollingRateClass = pollRateClass;
-                else break;
+            long sinceMoved = System.nanoTime() - lastTimeMoved;
+            if (sinceMoved >= SessionStatistics.NANOS_TO_STATIONARY) {
+                statistics.markStationary();
+                if (!stationary) {
+                    frameScheduler.requestFrame();
+                    if (Events.isActive()) MotionEvent.emit(false, sinceMoved);
+                }
+                stationary = true;
             } else {
-                pollRateClassLimit *= 2;
-                pollRateClass *= 2;
+                if (stationary && Events.isActive()) MotionEvent.emit(true, sinceMoved);
+                stationary = false;
             }
-        }
+        });
+        tasks.every(100, TimeUnit.MILLISECONDS, "rgb", () -> {
+            if (rgbCycle == 99) rgbCycle = 0;
+            else rgbCycle++;
+            if (config.isDrawRGB()) frameScheduler.requestFrame();
+        });
     }
 
-    private void calculateAveragePollingRate(Integer mouseUpdateFrequency) {
-        last5pollingRates.add(mouseUpdateFrequency);
-        if (last5pollingRates.size() > 4) last5pollingRates.remove(0);
-        avgPollingRate = 0;
-        for (int i = 0; i < last5pollingRates.size(); i++) {
-            avgPollingRate += last5pollingRates.get(i);
-        }
-        avgPollingRate /= last5pollingRates.size();
-    }
-
-    private void startPainterThread() {
-        new Thread(() -> {
-            while (!Thread.interrupted()) {
-                repaintCounter++;
-                this.repaint();
-                try {
-                    Thread.sleep(1000 / config.getMaxFPS());
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }).start();
+    @Override
+    public void paint(Graphics g) {
+        // with active rendering the canvas covers the panel and draws itself
+        if (activeRenderer != null) return;
+        long paintStart = System.nanoTime();
+        super.paint(g);
+        paintFrame((Graphics2D) g);
+        frameScheduler.framePresented(paintStart);
     }
 
-    private void startRGBThread() {
-        new Thread(() -> {
-            while (!Thread.interrupted()) {
-                if (rgbCycle == 99) rgbCycle = 0;
-                else rgbCycle++;
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }).start();
+    private void startActiveRendering() {
+        activeRenderer = new ActiveRenderer(this::paintFrame);
+        Canvas canvas = activeRenderer.getCanvas();
+        setLayout(new BorderLayout());
+        add(canvas, BorderLayout.CENTER);
+        // the canvas gets the mouse events instead of the panel now
+        if (inputSource instanceof MouseListener) canvas.addMouseListener((MouseListener) inputSource);
     }
 
-    private void startPaintFrequencyCounterThread() {
-        new Thread(() -> {
-            while (!Thread.interrupted()) {
-                fps = repaintCounter;
-                repaintCounter = 0;
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        }).start();
+    // runs on the FrameScheduler thread
+    private void present() {
+        ActiveRenderer renderer = activeRenderer;
+        long paintStart = System.nanoTime();
+        if (renderer == null) {
+            repaint();
+        } else if (renderer.render()) {
+            frameScheduler.framePresented(paintStart);
+        } else if (renderer.hasFailed()) {
+            Log.warning("Falling back to passive rendering");
+            SwingUtilities.invokeLater(() -> {
+                remove(renderer.getCanvas());
+                activeRenderer = null;
+                revalidate();
+                repaint();
+            });
+        }
     }
 
-    @Override
-    public void paint(Graphics g) {
-        super.paint(g);
-        Graphics2D g2d = (Graphics2D) g;
+    // package-private for the RenderHarness
+    void paintFrame(Graphics2D g2d) {
+        // the event class isn't loaded while no flight recording runs
+        FrameEvent event = Events.isActive() ? FrameEvent.start() : null;
         if (config.isDarkMode()) {
             g2d.setColor(Color.BLACK);
         } else {
@@ -186,14 +190,30 @@ public class MainPanel extends JPanel implements KeyListener {
         g2d.fillRect(0, 0, getWidth(), getHeight());
         if (config.isDrawPixelGrid()) paintPixelGrid(g2d);
         if (config.isDrawInchGrid()) paintInchGrid(g2d);
-        if (config.isDrawTrail()) paintPath(g2d);
-        if (config.isDrawCoordinates()) paintCoordinates(g2d);
+        if (config.isDrawTrail() || config.isDrawCoordinates()) {
+            trailLayer.paint(g2d, history, getWidth(), getHeight(), getWidth() / (float) screenSize.width, getHeight() / (float) screenSize.height,
+                    statistics.getLongestJump(), config.isDrawTrail(), config.isDrawCoordinates(), config.isFadeTrail());
+        }
         if (config.isDrawRGB()) paintRGB(g2d);
         if (latestUpdate != null) paintCursor(g2d);
+        if (config.isShowIntervalPanel()) paintIntervalOverlay(g2d);
         paintUI(g2d);
+        if (event != null) event.finish(config);
+    }
+
+    private void paintIntervalOverlay(Graphics2D g2d) {
+        int uiMultiplier = config.getUIMultiplier();
+        if (uiMultiplier != intervalFontMultiplier) {
+            intervalFont = new Font("Courier New", Font.PLAIN, 4 * uiMultiplier);
+            intervalFontMultiplier = uiMultiplier;
+        }
+        int width = 120 * uiMultiplier, height = 25 * uiMultiplier;
+        intervalOverlay.paint(g2d, (getWidth() - width) / 2, getHeight() - 2 * height - 10 * uiMultiplier, width, height, config.isDarkMode(),
+                config.isDarkMode() ? darkModeTextColor : textColor, intervalFont, statistics.getIntervals());
     }
 
     public void addDebugLog(String s) {
+        frameScheduler.requestFrame();
         this.debugLogs.add(0, s);
         if (config.isShowPollingPanel()) {
             while (debugLogs.size() > (this.getHeight() * 0.25 / lineHeight) - 6 && !debugLogs.isEmpty())
@@ -204,8 +224,11 @@ public class MainPanel extends JPanel implements KeyListener {
         }
     }
 
-    public void addStatsLog(String s) {
-        this.statsLogs.add(0, s);
+    public void addStatsLog(CharSequence s) {
+        // only turn the reused line into a string when the panel is going to show it
+        if (!config.isShowPollingPanel()) return;
+        frameScheduler.requestFrame();
+        this.statsLogs.add(0, s.toString());
 
         if (config.isShowDebugPanel()) {
             while (statsLogs.size() > (this.getHeight() * 0.75 / lineHeight) - 4 && !statsLogs.isEmpty())
@@ -217,138 +240,214 @@ public class MainPanel extends JPanel implements KeyListener {
     }
 
     private void paintUI(Graphics2D g2d) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("┌── HAMSTER WHEEL   F1 ─────────────────────────────────┐\n");
+        lineHeight = (int) (4.5 * config.getUIMultiplier());
+        Color color = config.isDarkMode() ? darkModeTextColor : textColor;
+        int rgb = config.isDrawRGB() ? rgbCycle : -1;
+        leftText.begin(config.getUIMultiplier(), config.isDarkMode(), color, rgb);
+        leftText.line("┌── HAMSTER WHEEL   F1 ─────────────────────────────────┐");
         if (config.isShowTitlePanel()) {
-            stringBuilder.append("│ Version              %8s                         │\n".formatted(Controller.VERSION));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Made with love by BitDani                             │\n");
-            stringBuilder.append("│ github.com/szabodanika/HamsterWheel                   │\n");
+            leftText.line("│ Version              %8s                         │", Controller.VERSION);
+            leftText.line("│                                                       │");
+            leftText.line("│ Made with love by BitDani                             │");
+            leftText.line("│ github.com/szabodanika/HamsterWheel                   │");
         }
-        stringBuilder.append("└───────────────────────────────────────────────────────┘\n");
-        stringBuilder.append("\n");
-        stringBuilder.append("┌── STATISTICS   F2 ────────────────────────────────────┐\n");
+        leftText.line("└───────────────────────────────────────────────────────┘");
+        leftText.line("");
+        leftText.line("┌── STATISTICS   F2 ────────────────────────────────────┐");
         if (config.isShowStatsPanel()) {
-            stringBuilder.append("│ Position             %8d px     %8d px      │\n".formatted(latestUpdate.getPosition().x, latestUpdate.getPosition().y));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Polling rate         %8d Hz                      │\n".formatted(pollingRate));
-            stringBuilder.append("│ Polling rate MAX     %8d Hz                      │\n".formatted(maxPollingRate));
-            stringBuilder.append("│ Polling rate AVG     %8d Hz                      │\n".formatted(avgPollingRate));
-            stringBuilder.append("│ Polling rate class   %8d Hz                      │\n".formatted(pollingRateClass));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Longest jump dist.   %8d px     %8.4f inch    │\n".formatted(longestJump, (float) longestJump / config.getDpi()));
-            stringBuilder.append("│ Shortest jump dist.  %8d px     %8.4f inch    │\n".formatted(shortestJump == Integer.MAX_VALUE ? 0 : shortestJump, (float) (shortestJump == Integer.MAX_VALUE ? 0 : shortestJump) / config.getDpi()));
-            stringBuilder.append("│ Movement speed       %8d px/s   %8.4f inch/s  │\n".formatted(lastJump * longestJump, (float) pollingRateClass * lastJump / config.getDpi()));
-            stringBuilder.append("│ Fastest movement     %8d px/s   %8.4f inch/s  │\n".formatted(pollingRateClass * longestJump, (float) pollingRateClass * longestJump / config.getDpi()));
-            stringBuilder.append("│ Acceleration         %8d px/s2  %8.4f g       │\n".formatted(currentAcceleration, ((float) currentAcceleration / config.getDpi()) * 0.025900792));
-            stringBuilder.append("│ Fastest acceleration %8d px/s2  %8.4f g       │\n".formatted(highestAcceleration, ((float) highestAcceleration / config.getDpi() * 0.025900792)));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ LMB-RMB Latency      %8.2f ms                      │\n".formatted(mouseLocator.getRelativeClickLatency()));
-            stringBuilder.append("│ LMB Duration         %8.2f ms                      │\n".formatted(mouseLocator.getClickDuration()));
-            stringBuilder.append("│ LMB Interval         %8.2f ms                      │\n".formatted(mouseLocator.getClickInterval()));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Graphics FPS         %8d FPS                     │\n".formatted(fps));
+            leftText.line("│ Position             %8d px     %8d px      │", latestUpdate.getX(), latestUpdate.getY());
+            leftText.line("│                                                       │");
+            leftText.line("│ Polling rate         %8d Hz                      │", statistics.getPollingRate());
+            leftText.line("│ Polling rate MAX     %8d Hz                      │", statistics.getMaxPollingRate());
+            leftText.line("│ Polling rate AVG     %8d Hz                      │", statistics.getAvgPollingRate());
+            leftText.line("│ Polling rate class   %8d Hz                      │", statistics.getPollingRateClass());
+            leftText.line("│                                                       │");
+            SlidingIntervalHistogram intervals = statistics.getIntervals();
+            intervals.window(1, lastSecondIntervals);
+            intervals.window(intervals.getSeconds(), windowIntervals);
+            leftText.line("│ Report interval       last 1s         last 10s        │");
+            for (int i = 0; i < INTERVAL_PERCENTILES.length; i++) {
+                leftText.line(INTERVAL_ROWS[i], lastSecondIntervals.getValueAtPercentile(INTERVAL_PERCENTILES[i]) / 1000000f,
+                        windowIntervals.getValueAtPercentile(INTERVAL_PERCENTILES[i]) / 1000000f);
+            }
+            leftText.line(INTERVAL_MAX_ROW, lastSecondIntervals.getMax() / 1000000f, windowIntervals.getMax() / 1000000f);
+            leftText.line("│                                                       │");
+            leftText.line("│ Longest jump dist.   %8d px     %8.4f inch    │", statistics.getLongestJump(), (float) statistics.getLongestJump() / config.getDpi());
+            leftText.line("│ Shortest jump dist.  %8d px     %8.4f inch    │", statistics.getShortestJump(), (float) statistics.getShortestJump() / config.getDpi());
+            Kinematics kinematics = statistics.getKinematics();
+            leftText.line("│ Movement speed       %8d px/s   %8.4f inch/s  │", kinematics.getVelocity(), kinematics.getVelocity() / config.getDpi());
+            leftText.line("│ Velocity X/Y         %8d px/s   %8d px/s    │", kinematics.getVelocityX(), kinematics.getVelocityY());
+            leftText.line("│ Fastest movement     %8d px/s   %8.4f inch/s  │", kinematics.getPeakVelocity(), kinematics.getPeakVelocity() / config.getDpi());
+            leftText.line("│ Acceleration         %8d px/s2  %8.4f g       │", kinematics.getAcceleration(), kinematics.getAcceleration() / config.getDpi() * INCH_PER_S2_TO_G);
+            leftText.line("│ Acceleration X/Y     %8d px/s2  %8d px/s2   │", kinematics.getAccelerationX(), kinematics.getAccelerationY());
+            leftText.line("│ Fastest acceleration %8d px/s2  %8.4f g       │", kinematics.getPeakAcceleration(), kinematics.getPeakAcceleration() / config.getDpi() * INCH_PER_S2_TO_G);
+            leftText.line("│                                                       │");
+            leftText.line("│ LMB-RMB Latency      %8.2f ms                      │", inputSource.getRelativeClickLatency());
+            leftText.line("│ LMB Duration         %8.2f ms                      │", inputSource.getClickDuration());
+            leftText.line("│ LMB Interval         %8.2f ms                      │", inputSource.getClickInterval());
+            leftText.line("│                                                       │");
+            leftText.line("│ Graphics FPS         %8d FPS                     │", frameScheduler.getFps());
+            frameScheduler.getFrameTimes().window(SessionStatistics.INTERVAL_WINDOW_SECONDS, frameTimeWindow);
+            leftText.line("│ Frame time p50/p99   %8.2f ms     %8.2f ms       │", frameTimeWindow.getValueAtPercentile(50) / 1000000f,
+                    frameTimeWindow.getValueAtPercentile(99) / 1000000f);
+            SamplingScheduler scheduler = inputSource.getScheduler();
+            if (scheduler != null) {
+                leftText.line("│ Sampling rate        %8d Hz                      │", scheduler.getAchievedRate());
+                leftText.line("│ Sampler CPU          %8.1f %%                       │", scheduler.getCpuUsage());
+                leftText.line("│ Sampling jitter      %8.1f us     %8.1f us max  │", scheduler.getJitterMicros(), scheduler.getMaxIntervalMicros());
+            }
+            SampleDispatcher dispatcher = Controller.getDispatcher();
+            if (dispatcher != null) {
+                leftText.line("│ Consumer lag         %8d        %8d max     │", dispatcher.getLag(), dispatcher.getMaxLag());
+                // the policy is fixed at startup, so it goes into the template
+                if (droppedRow == null) droppedRow = "│ Samples dropped      %%8d        %8s         │".formatted(SampleQueue.OVERFLOW_NAMES[dispatcher.getOverflowPolicy()]);
+                leftText.line(droppedRow, dispatcher.getDropped());
+            }
+            AnomalyDetector anomalies = Controller.getAnomalyDetector();
+            if (anomalies != null) {
+                leftText.line("│                                                       │");
+                leftText.line("│ Dropped/dup. reports %8d        %8d         │", anomalies.getCount(Anomaly.DROPPED_REPORT),
+                        anomalies.getCount(Anomaly.DUPLICATE_TIMESTAMP));
+                leftText.line("│ Jumps/jitter         %8d        %8d         │", anomalies.getCount(Anomaly.POSITION_JUMP),
+                        anomalies.getCount(Anomaly.STATIONARY_JITTER));
+                leftText.line("│ Angle snapping       %8d                         │", anomalies.getCount(Anomaly.ANGLE_SNAPPING));
+            }
         }
-        stringBuilder.append("└───────────────────────────────────────────────────────┘\n");
-        stringBuilder.append("\n");
-        stringBuilder.append("┌── SETTINGS   F3 ──────────────────────────────────────┐\n");
+        leftText.line("└───────────────────────────────────────────────────────┘");
+        leftText.line("");
+        leftText.line("┌── SETTINGS   F3 ──────────────────────────────────────┐");
         if (config.isShowSettingsPanel()) {
-            stringBuilder.append("│ Pause                       SPACE     %8s        │\n".formatted(mouseLocator.isPaused()));
-            stringBuilder.append("│ Draw trail                    T       %8s        │\n".formatted(config.isDrawTrail()));
-            stringBuilder.append("│ Draw coordinates              C       %8s        │\n".formatted(config.isDrawCoordinates()));
-            stringBuilder.append("│ Polling rate multiplier       M       %8s        │\n".formatted("1/" + config.getPollrateDivisor()));
-            stringBuilder.append("│ DPI                           ↑ ↓     %8s        │\n".formatted(config.getDpi()));
-            stringBuilder.append("│ FPS limit                     F       %8s        │\n".formatted(config.getMaxFPS()));
-            stringBuilder.append("│ Draw  250px grid              P       %8s        │\n".formatted(config.isDrawPixelGrid()));
-            stringBuilder.append("│ Draw 1 inch grid              I       %8s        │\n".formatted(config.isDrawInchGrid()));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Cycle UI size                 U       %8s        │\n".formatted(config.getUIMultiplier()));
-            stringBuilder.append("│ Dark mode                     D       %8s        │\n".formatted(config.isDarkMode()));
-            stringBuilder.append("│ RGB                           G       %8s        │\n".formatted(config.isDrawRGB()));
-            stringBuilder.append("│ Write poll data in file      F11      %8s        │\n".formatted(config.isEnableStatisticsLogging()));
-            stringBuilder.append("│ Fullscreen                   F12      %8s        │\n".formatted(config.isFullScreen()));
-            stringBuilder.append("│                                                       │\n");
-            stringBuilder.append("│ Hide/show UI                  H                       │\n");
-            stringBuilder.append("│ Reset settings               DEL                      │\n");
-            stringBuilder.append("│ Reset stats                   R                       │\n");
-            stringBuilder.append("│ Exit                          ESC                     │\n");
+            leftText.line("│ Pause                       SPACE     %8s        │", inputSource.isPaused());
+            leftText.line("│ Draw trail                    T       %8s        │", config.isDrawTrail());
+            leftText.line("│ Fade trail                    E       %8s        │", config.isFadeTrail());
+            leftText.line("│ Draw coordinates              C       %8s        │", config.isDrawCoordinates());
+            leftText.line("│ Polling rate multiplier       M       %8s        │", "1/" + config.getPollrateDivisor());
+            leftText.line("│ Sampling strategy             S      %9s        │", SamplingScheduler.STRATEGY_NAMES[config.getSamplingStrategy()]);
+            leftText.line("│ Sampling target rate          A       %8d        │", config.getSamplingRate());
+            leftText.line("│ DPI                           ↑ ↓     %8d        │", config.getDpi());
+            leftText.line("│ FPS limit                     F       %8d        │", config.getMaxFPS());
+            leftText.line("│ Draw  250px grid              P       %8s        │", config.isDrawPixelGrid());
+            leftText.line("│ Draw 1 inch grid              I       %8s        │", config.isDrawInchGrid());
+            leftText.line("│                                                       │");
+            leftText.line("│ Cycle UI size                 U       %8d        │", config.getUIMultiplier());
+            leftText.line("│ Dark mode                     D       %8s        │", config.isDarkMode());
+            leftText.line("│ RGB                           G       %8s        │", config.isDrawRGB());
+            leftText.line("│ Write poll data in file      F11      %8s        │", config.isEnableStatisticsLogging());
+            leftText.line("│ Poll data file format         B       %8s        │", Config.LOG_FORMAT_NAMES[config.getStatisticsLogFormat()]);
+            leftText.line("│ Interval panel                F6      %8s        │", config.isShowIntervalPanel());
+            leftText.line("│ DPI calibration               K       %8s        │", config.isShowCalibrationPanel());
+            leftText.line("│ Health panel                  F7      %8s        │", config.isShowHealthPanel());
+            leftText.line("│ Fullscreen                   F12      %8s        │", config.isFullScreen());
+            leftText.line("│ Active rendering              V       %8s        │", config.isActiveRendering());
+            leftText.line("│                                                       │");
+            leftText.line("│ Hide/show UI                  H                       │");
+            leftText.line("│ Reset settings               DEL                      │");
+            leftText.line("│ Reset stats                   R                       │");
+            leftText.line("│ Exit                          ESC                     │");
         }
-        stringBuilder.append("└───────────────────────────────────────────────────────┘\n");
-        stringBuilder.append("\nRemember to turn off mouse acceleration/precision enhancements");
-        stringBuilder.append("\n");
-
-        for (Integer integer : mouseLocator.buttonsPressed) {
-            stringBuilder.append("\nButton %d pressed".formatted(integer));
+        leftText.line("└───────────────────────────────────────────────────────┘");
+        leftText.line("");
+        leftText.line("Remember to turn off mouse acceleration/precision enhancements");
+
+        int buttonsPressed = inputSource.getButtonsPressed();
+        if (buttonsPressed != 0) leftText.line("");
+        for (int button = 0; button < 32; button++) {
+            if ((buttonsPressed & (1 << button)) != 0) leftText.line("Button %d pressed", button);
         }
+        leftText.end();
+        leftText.draw(g2d, 20, 30);
 
-        printText(g2d, 20, 30, config.isDarkMode() ? darkModeTextColor : textColor, stringBuilder.toString());
-
-        stringBuilder = new StringBuilder();
+        rightText.begin(config.getUIMultiplier(), config.isDarkMode(), color, rgb);
         int lineCounter = 0;
         //TODO horizontal placement of right side when changing ui size
-        stringBuilder.append("┌── DEBUG   F4 ────────────────────────────────┐\n");
+        if (config.isShowCalibrationPanel()) {
+            paintCalibration();
+            lineCounter += 12;
+        }
+        if (config.isShowHealthPanel()) lineCounter += paintHealth();
+        rightText.line("┌── DEBUG   F4 ────────────────────────────────┐");
         if (config.isShowDebugPanel()) {
             for (String debugLog : debugLogs.toArray(new String[0])) {
                 if (config.isShowPollingPanel() && lineCounter >= (this.getHeight() * 0.25 / lineHeight) - 6) break;
                 else if (lineCounter >= (this.getHeight() / lineHeight) - 6) break;
                 while (debugLog.length() > 44) {
-                    stringBuilder.append("│ %-44s │\n".formatted(debugLog.substring(0, 44)));
+                    rightText.line("│ %-44s │", debugLog.substring(0, 44));
                     lineCounter++;
                     debugLog = debugLog.substring(44);
                 }
-                stringBuilder.append("│ %-44s │\n".formatted(debugLog));
+                rightText.line("│ %-44s │", debugLog);
                 lineCounter++;
             }
         }
 
-        stringBuilder.append("└──────────────────────────────────────────────┘\n");
-        stringBuilder.append("\n");
-        stringBuilder.append("┌── STATS   F5 ────────────────────────────────┐\n");
+        rightText.line("└──────────────────────────────────────────────┘");
+        rightText.line("");
+        rightText.line("┌── STATS   F5 ────────────────────────────────┐");
         if (config.isShowPollingPanel()) {
 
+            // the kinematics columns don't fit, the file keeps them
             for (String statsLog : statsLogs.toArray(new String[0])) {
-                stringBuilder.append("│ %-44s │\n".formatted(statsLog));
+                rightText.line("│ %-44.44s │", statsLog);
             }
         }
 
-        stringBuilder.append("└──────────────────────────────────────────────┘\n");
-        printText(g2d, this.getWidth() - 360, 30, config.isDarkMode() ? darkModeTextColor : textColor, stringBuilder.toString());
-
+        rightText.line("└──────────────────────────────────────────────┘");
+        rightText.end();
+        rightText.draw(g2d, this.getWidth() - 360, 30);
     }
 
-    private void printText(Graphics2D g2d, int x, int y, Color color, String string) {
-        lineHeight = (int) (4.5 * config.getUIMultiplier());
-        String line = null;
-        AttributedString attributedString = null;
-        g2d.setColor(color);
-        for (int i = 0; i < string.split("\n").length; i++) {
-            line = string.split("\n")[i];
-            attributedString = new AttributedString(line);
-
-            if (line.trim().length() != 0) {
-                if (config.isDarkMode())
-                    attributedString.addAttribute(TextAttribute.BACKGROUND, new Color(110, 80, 100, 120));
-                else attributedString.addAttribute(TextAttribute.BACKGROUND, new Color(210, 180, 200, 120));
-                attributedString.addAttribute(TextAttribute.FONT, new Font("Courier New", Font.PLAIN, 4 * config.getUIMultiplier()));
-                if (config.isDrawRGB())
-                    attributedString.addAttribute(TextAttribute.FOREGROUND, new Color(Color.HSBtoRGB((float) i / string.split("\n").length + rgbCycle / 100f, 1, 1)));
-            }
+    private void paintCalibration() {
+        rightText.line("┌── DPI CALIBRATION   K ───────────────────────┐");
+        rightText.line("│ Swipe %4d mm along X or Y, pause in between │", config.getCalibrationDistance());
+        rightText.line("│ ← → distance   ENTER use CPI   R start over  │");
+        rightText.line("│ Pass now       %8d X     %8d Y     │", calibration.getPassX(), calibration.getPassY());
+        for (int axis = 0; axis < CALIBRATION_ROWS.length; axis++) {
+            rightText.line(CALIBRATION_ROWS[axis], calibration.getPasses(axis), calibration.getCpi(axis));
+            rightText.line("│    95%% CI  ± %8.1f  deviation %+8.2f %%  │", calibration.getCpiError(axis), calibration.getDeviation(axis));
+        }
+        rightText.line("│ Combined       %8.1f CPI                  │", calibration.getCombinedCpi());
+        rightText.line("│ Last pass      %8.1f CPI  %6d rejected │", calibration.getLastPassCpi(), calibration.getRejected());
+        rightText.line("└──────────────────────────────────────────────┘");
+        rightText.line("");
+    }
 
-            g2d.drawString(attributedString.getIterator(), x, y + lineHeight * i);
+    // returns the number of lines, the sampler rows are only there for the cursor poller
+    private int paintHealth() {
+        int lines = 0;
+        rightText.line("┌── HEALTH   F7 ───────────────────────────────┐");
+        SamplerMetrics metrics = inputSource.getMetrics();
+        SamplingScheduler scheduler = inputSource.getScheduler();
+        if (metrics != null && scheduler != null) {
+            rightText.line("│ Sampler loop     %8d /s  %8.1f %% CPU │", metrics.getLoopRate(), scheduler.getCpuUsage());
+            rightText.line("│ Pointer call p50 %8.1f us p99 %8.1f us │", metrics.getPointerCallP50() / 1000f, metrics.getPointerCallP99() / 1000f);
+            rightText.line("│ Pointer call max %8.1f us                 │", metrics.getPointerCallMax() / 1000f);
+            rightText.line("│ Polls per change %8d p50 %8d max   │", metrics.getPollsPerChangeP50(), metrics.getPollsPerChangeMax());
+            rightText.line("│ Consumers    p50 %8.1f us p99 %8.1f us │", metrics.getConsumerCallP50() / 1000f, metrics.getConsumerCallP99() / 1000f);
+            rightText.line("│ Consumers    max %8.1f us                 │", metrics.getConsumerCallMax() / 1000f);
+            rightText.line("│ Stalls           %8d     %8.2f ms max│", metrics.getStalls(), metrics.getLongestStall() / 1000000f);
+            lines += 7;
         }
+        JvmMetrics jvm = Controller.getJvmMetrics();
+        rightText.line("│ GC pauses        %8d     %8d ms    │", jvm.getGcCount(), jvm.getGcTime());
+        rightText.line("│ GC last second   %8d ms                 │", jvm.getGcTimeLastSecond());
+        rightText.line("│ Allocation       %8.1f MB/s %6.0f MB heap│", jvm.getAllocationRate() / 1000000, jvm.getHeapUsed() / 1000000f);
+        rightText.line("│ Process CPU      %8.1f %%                  │", jvm.getProcessCpu());
+        rightText.line("└──────────────────────────────────────────────┘");
+        rightText.line("");
+        return lines + 7;
     }
 
     private void paintCursor(Graphics2D g2d) {
-        g2d.setColor(mouseLocator.buttonsPressed.isEmpty() ? cursorColor : cursorButtonPressedColor);
+        g2d.setColor(inputSource.getButtonsPressed() == 0 ? cursorColor : cursorButtonPressedColor);
         // vertical line
-        g2d.fillRect(scalePosition(latestUpdate.getPosition()).x, scalePosition(latestUpdate.getPosition()).y - config.getUIMultiplier() * 2, 1, config.getUIMultiplier() * 4 + 1);
+        g2d.fillRect(scaleX(latestUpdate.getX()), scaleY(latestUpdate.getY()) - config.getUIMultiplier() * 2, 1, config.getUIMultiplier() * 4 + 1);
         // horizontal line
-        g2d.fillRect(scalePosition(latestUpdate.getPosition()).x - config.getUIMultiplier() * 2, scalePosition(latestUpdate.getPosition()).y, config.getUIMultiplier() * 4 + 1, 1);
+        g2d.fillRect(scaleX(latestUpdate.getX()) - config.getUIMultiplier() * 2, scaleY(latestUpdate.getY()), config.getUIMultiplier() * 4 + 1, 1);
         // center pixel
         g2d.setColor(Color.YELLOW);
-        g2d.fillRect(scalePosition(latestUpdate.getPosition()).x, scalePosition(latestUpdate.getPosition()).y, 1, 1);
+        g2d.fillRect(scaleX(latestUpdate.getX()), scaleY(latestUpdate.getY()), 1, 1);
         if (stationary) {
-            g2d.drawOval(scalePosition(latestUpdate.getPosition()).x - config.getUIMultiplier() * 5, scalePosition(latestUpdate.getPosition()).y - config.getUIMultiplier() * 5, config.getUIMultiplier() * 10, config.getUIMultiplier() * 10);
+            g2d.drawOval(scaleX(latestUpdate.getX()) - config.getUIMultiplier() * 5, scaleY(latestUpdate.getY()) - config.getUIMultiplier() * 5, config.getUIMultiplier() * 10, config.getUIMultiplier() * 10);
         }
     }
 
@@ -374,37 +473,6 @@ public class MainPanel extends JPanel implements KeyListener {
         }
     }
 
-    private void paintPath(Graphics2D graphics2D) {
-        float dist = 0, colorMultiplier, distx = 0, disty = 0;
-
-        MouseUpdate currentUpdate = latestUpdate;
-
-        for (int i = 0; i < COORDINATE_BACKLOG_LENGTH && currentUpdate != null && currentUpdate.getPrevious() != null; i++) {
-            distx = currentUpdate.getPrevious().getPosition().x - currentUpdate.getPosition().x;
-            disty = currentUpdate.getPrevious().getPosition().y - currentUpdate.getPosition().y;
-            dist = (float) Math.sqrt(Math.pow(distx, 2) + Math.pow(disty, 2));
-            colorMultiplier = (dist > longestJump) ? 1 : dist / (float) longestJump;
-            graphics2D.setColor(Color.decode("#%02X%02X00".formatted((int) (255 * colorMultiplier), (int) (255 * (1 - colorMultiplier)))));
-            graphics2D.drawLine(scalePosition(currentUpdate.getPrevious().getPosition()).x, scalePosition(currentUpdate.getPrevious().getPosition()).y, scalePosition(currentUpdate.getPosition()).x, scalePosition(currentUpdate.getPosition()).y);
-            currentUpdate = currentUpdate.getPrevious();
-        }
-    }
-
-    private void paintCoordinates(Graphics2D graphics2D) {
-        graphics2D.setColor(coordinateColor);
-        MouseUpdate currentUpdate = latestUpdate;
-        for (int i = 0; i < COORDINATE_BACKLOG_LENGTH && currentUpdate != null; i++) {
-            if (currentUpdate.getButtonsPressed().length == 0) {
-                graphics2D.setColor(coordinateColor);
-                graphics2D.drawOval(scalePosition(currentUpdate.getPosition()).x - 1, scalePosition(currentUpdate.getPosition()).y - 1, 1, 1);
-            } else {
-                graphics2D.setColor(coordinateButtonPressedColor);
-                graphics2D.drawOval(scalePosition(currentUpdate.getPosition()).x - 1, scalePosition(currentUpdate.getPosition()).y - 1, 2, 2);
-            }
-            currentUpdate = currentUpdate.getPrevious();
-        }
-    }
-
     private void paintRGB(Graphics2D graphics2D) {
         for (int i = -5; i < getWidth(); i += 5) {
             graphics2D.setColor(new Color(Color.HSBtoRGB((i / (float) getWidth() + rgbCycle / 100f), 1, 1)));
@@ -426,10 +494,11 @@ public class MainPanel extends JPanel implements KeyListener {
 
     @Override
     public void keyReleased(KeyEvent e) {
+        frameScheduler.requestFrame();
         switch (e.getKeyCode()) {
             case KeyEvent.VK_SPACE:
-                mouseLocator.setPaused(!mouseLocator.isPaused());
-                Log.info("paused: %s".formatted(mouseLocator.isPaused()));
+                inputSource.setPaused(!inputSource.isPaused());
+                Log.info("paused: %s".formatted(inputSource.isPaused()));
                 break;
             case KeyEvent.VK_ESCAPE:
                 Controller.exit();
@@ -439,6 +508,15 @@ public class MainPanel extends JPanel implements KeyListener {
                 else config.setPollrateDivisor(config.getPollrateDivisor() * 2);
                 Log.info("changed setting - pollrate divisor: %s".formatted(config.getPollrateDivisor()));
                 break;
+            case KeyEvent.VK_S:
+                config.setSamplingStrategy((config.getSamplingStrategy() + 1) % SamplingScheduler.STRATEGY_NAMES.length);
+                Log.info("changed setting - sampling strategy: %s".formatted(SamplingScheduler.STRATEGY_NAMES[config.getSamplingStrategy()]));
+                break;
+            case KeyEvent.VK_A:
+                if (config.getSamplingRate() >= 32000) config.setSamplingRate(1000);
+                else config.setSamplingRate(config.getSamplingRate() * 2);
+                Log.info("changed setting - sampling target rate: %s".formatted(config.getSamplingRate()));
+                break;
             case KeyEvent.VK_F:
                 if (config.getMaxFPS() == 480) config.setMaxFPS(30);
                 else config.setMaxFPS(config.getMaxFPS() * 2);
@@ -456,6 +534,10 @@ public class MainPanel extends JPanel implements KeyListener {
                 config.setDrawTrail(!config.isDrawTrail());
                 Log.info("changed setting - draw trail: %s".formatted(config.isDrawTrail()));
                 break;
+            case KeyEvent.VK_E:
+                config.setFadeTrail(!config.isFadeTrail());
+                Log.info("changed setting - fade trail: %s".formatted(config.isFadeTrail()));
+                break;
             case KeyEvent.VK_U:
                 if (config.getUIMultiplier() == 8) config.setUIMultiplier(2);
                 else config.setUIMultiplier(config.getUIMultiplier() + 1);
@@ -511,10 +593,46 @@ public class MainPanel extends JPanel implements KeyListener {
                 config.setShowPollingPanel(!config.isShowPollingPanel());
                 Log.info("changed setting - show poll data panel: %s".formatted(config.isShowPollingPanel()));
                 break;
+            case KeyEvent.VK_K:
+                config.setShowCalibrationPanel(!config.isShowCalibrationPanel());
+                calibration.reset();
+                Log.info("changed setting - dpi calibration: %s".formatted(config.isShowCalibrationPanel()));
+                break;
+            case KeyEvent.VK_LEFT:
+                config.setCalibrationDistance(Math.max(10, config.getCalibrationDistance() - 10));
+                Log.info("changed setting - calibration distance: %d mm".formatted(config.getCalibrationDistance()));
+                break;
+            case KeyEvent.VK_RIGHT:
+                config.setCalibrationDistance(Math.min(1000, config.getCalibrationDistance() + 10));
+                Log.info("changed setting - calibration distance: %d mm".formatted(config.getCalibrationDistance()));
+                break;
+            case KeyEvent.VK_ENTER:
+                if (config.isShowCalibrationPanel() && calibration.getCombinedCpi() > 0) {
+                    config.setDpi((int) Math.round(calibration.getCombinedCpi()));
+                    Log.info("changed setting - dpi: %s (calibrated)".formatted(config.getDpi()));
+                }
+                break;
+            case KeyEvent.VK_F7:
+                config.setShowHealthPanel(!config.isShowHealthPanel());
+                Log.info("changed setting - show health panel: %s".formatted(config.isShowHealthPanel()));
+                break;
+            case KeyEvent.VK_F6:
+                config.setShowIntervalPanel(!config.isShowIntervalPanel());
+                Log.info("changed setting - show interval panel: %s".formatted(config.isShowIntervalPanel()));
+                break;
+            case KeyEvent.VK_B:
+                config.setStatisticsLogFormat((config.getStatisticsLogFormat() + 1) % Config.LOG_FORMAT_NAMES.length);
+                Log.info("changed setting - poll data file format: %s".formatted(Config.LOG_FORMAT_NAMES[config.getStatisticsLogFormat()]));
+                break;
             case KeyEvent.VK_F11:
                 config.setEnableStatisticsLogging(!config.isEnableStatisticsLogging());
                 Log.info("changed setting - save poll data on disk: %s".formatted(config.isEnableStatisticsLogging()));
                 break;
+            case KeyEvent.VK_V:
+                config.setActiveRendering(!config.isActiveRendering());
+                Controller.loadFrame();
+                Log.info("changed setting - active rendering: %s".formatted(config.isActiveRendering()));
+                break;
             case KeyEvent.VK_F12:
                 config.setFullScreen(!config.isFullScreen());
                 Controller.loadFrame();
@@ -523,18 +641,30 @@ public class MainPanel extends JPanel implements KeyListener {
         }
     }
 
+    // stops the threads drawing this panel, the frame is being replaced
+    public void stop() {
+        tasks.cancel();
+        frameScheduler.stop();
+        if (activeRenderer != null) activeRenderer.dispose();
+    }
+
     private void resetStats() {
-        latestUpdate.setPrevious(null);
-        avgPollingRate = 0;
-        shortestJump = Integer.MAX_VALUE;
-        maxPollingRate = 0;
-        pollingRateClass = 0;
-        longestJump = 0;
-        highestAcceleration = 0;
+        history.clear();
+        trailLayer.invalidate();
+        statistics.reset();
+        intervalOverlay.reset();
+        if (Controller.getDispatcher() != null) Controller.getDispatcher().resetMaxLag();
+        if (Controller.getAnomalyDetector() != null) Controller.getAnomalyDetector().reset();
+        calibration.reset();
+        if (inputSource.getMetrics() != null) inputSource.getMetrics().reset();
+    }
+
+    private int scaleX(int x) {
+        return (int) (x * (this.getWidth() / (float) screenSize.width));
     }
 
-    private Point scalePosition(Point position) {
-        return new Point((int) (position.x * (this.getWidth() / (float) screenSize.width)), (int) (position.y * (this.getHeight() / (float) screenSize.height)));
+    private int scaleY(int y) {
+        return (int) (y * (this.getHeight() / (float) screenSize.height));
     }
 
 }
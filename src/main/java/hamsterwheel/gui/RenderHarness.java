@@ -0,0 +1,239 @@
+package hamsterwheel.gui;
+
+import hamsterwheel.config.Config;
+import hamsterwheel.core.IntervalHistogram;
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.core.SyntheticInputSource;
+import hamsterwheel.util.Log;
+import hamsterwheel.util.Scheduler;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// renders MainPanel into an offscreen image without a window and measures how long a frame
+// takes for a sweep of overlays, UI sizes and trail lengths. samples come from a scripted
+// circle at 8 kHz, one frame's worth between two frames at 120 FPS. the results go into a csv
+// that a later run can be compared against with -baseline
+public class RenderHarness {
+
+    private static final String[] COLUMNS = {"scenario", "ui", "trail", "frames", "first ms", "p50 ms", "p90 ms",
+            "p99 ms", "max ms", "alloc bytes/frame"};
+    private static final String[] SCENARIOS = {"plain", "trail", "coordinates", "fade", "pixel grid", "inch grid", "rgb",
+            "debug panel", "stats panel", "interval panel", "health panel", "all"};
+    private static final int[] UI_MULTIPLIERS = {2, 3, 4};
+    // samples already in the history when the first frame is drawn
+    private static final int[] TRAIL_LENGTHS = {1024, 16384};
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+    private static final int SAMPLE_RATE = 8000, FRAME_RATE = 120, RADIUS = 400, SPEED = 2000;
+    // differences below this are noise and never count as slower
+    private static final double NOISE_MILLIS = 0.05;
+    private static final long NOISE_BYTES = 1024;
+
+    private final int frames;
+    private final MouseUpdate mouseUpdate = new MouseUpdate();
+    private final StringBuilder statsLine = new StringBuilder(128);
+    private long samples = 0;
+
+    public RenderHarness(int frames) {
+        this.frames = frames;
+    }
+
+    // usage: -render [-o render.csv] [-baseline render.csv] [-frames n] [-threshold 1.2]
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Path output = Path.of("render.csv"), baseline = null;
+        int frames = 300;
+        double threshold = 1.2;
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("-o")) output = Path.of(args[++i]);
+            else if (args[i].equals("-baseline")) baseline = Path.of(args[++i]);
+            else if (args[i].equals("-frames")) frames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-threshold")) threshold = Double.parseDouble(args[++i]);
+        }
+
+        try {
+            long start = System.nanoTime();
+            RenderHarness harness = new RenderHarness(frames);
+            // one untimed pass so the first scenario isn't measured before the JIT caught up
+            harness.run("all", 3, TRAIL_LENGTHS[0]);
+            List<Object[]> rows = new ArrayList<>();
+            for (String scenario : SCENARIOS) {
+                for (int uiMultiplier : UI_MULTIPLIERS) {
+                    for (int trail : TRAIL_LENGTHS) rows.add(harness.run(scenario, uiMultiplier, trail));
+                }
+            }
+            printTable(rows);
+            writeCsv(rows, output);
+            Log.info("Rendered %d configurations in %.1f s, results written to %s".formatted(rows.size(),
+                    (System.nanoTime() - start) / 1000000000f, output));
+            int slower = baseline == null ? 0 : compare(rows, baseline, threshold);
+            Scheduler.shutdown();
+            if (slower > 0) System.exit(1);
+        } catch (AWTException | IOException e) {
+            Log.error("Render harness failed: %s".formatted(e.getMessage()));
+            Scheduler.shutdown();
+            // told apart from a regression, which exits with 1
+            System.exit(2);
+        }
+    }
+
+    // one row of the results
+    public Object[] run(String scenario, int uiMultiplier, int trail) throws AWTException {
+        Config config = new Config();
+        config.setUIMultiplier(uiMultiplier);
+        apply(scenario, config);
+        SyntheticInputSource inputSource = new SyntheticInputSource(SyntheticInputSource.Settings.parse(""),
+                update -> {
+                }, config, WIDTH / 2, HEIGHT / 2);
+        MainPanel panel = new MainPanel(inputSource, config);
+        // frames are drawn here and nowhere else
+        panel.stop();
+        panel.setSize(WIDTH, HEIGHT);
+        for (int i = 0; i < 32; i++) panel.addDebugLog("[render harness] debug line %d".formatted(i));
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        IntervalHistogram frameTimes = new IntervalHistogram();
+        feed(panel, config, trail);
+        long first = drawFrame(panel, image);
+        long allocated = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            feed(panel, config, SAMPLE_RATE / FRAME_RATE);
+            long allocatedBefore = allocatedBytes();
+            frameTimes.record(drawFrame(panel, image));
+            allocated += allocatedBytes() - allocatedBefore;
+        }
+        return new Object[]{scenario, uiMultiplier, trail, frames, millis(first),
+                millis(frameTimes.getValueAtPercentile(50)), millis(frameTimes.getValueAtPercentile(90)),
+                millis(frameTimes.getValueAtPercentile(99)), millis(frameTimes.getMax()),
+                allocatedBytes() < 0 ? -1 : allocated / frames};
+    }
+
+    private static void apply(String scenario, Config config) {
+        boolean all = scenario.equals("all");
+        config.setDrawTrail(all || scenario.equals("trail") || scenario.equals("fade"));
+        config.setFadeTrail(all || scenario.equals("fade"));
+        config.setDrawCoordinates(all || scenario.equals("coordinates"));
+        config.setDrawPixelGrid(all || scenario.equals("pixel grid"));
+        config.setDrawInchGrid(all || scenario.equals("inch grid"));
+        config.setDrawRGB(all || scenario.equals("rgb"));
+        config.setShowDebugPanel(all || scenario.equals("debug panel"));
+        config.setShowPollingPanel(all || scenario.equals("stats panel"));
+        config.setShowIntervalPanel(all || scenario.equals("interval panel"));
+        config.setShowHealthPanel(all || scenario.equals("health panel"));
+    }
+
+    // the next samples of a circle, the stats panel gets its lines like from Log.stats
+    private void feed(MainPanel panel, Config config, int count) {
+        for (int i = 0; i < count; i++) {
+            long time = samples * 1_000_000_000L / SAMPLE_RATE;
+            double angle = (double) SPEED * samples / SAMPLE_RATE / RADIUS;
+            mouseUpdate.set(time, WIDTH / 2 + (int) Math.round(RADIUS * Math.cos(angle)),
+                    HEIGHT / 2 + (int) Math.round(RADIUS * Math.sin(angle)), config.getDpi(), SAMPLE_RATE, 0);
+            mouseUpdate.setHasPrevious(samples > 0);
+            samples++;
+            panel.handlePosition(mouseUpdate);
+            if (config.isShowPollingPanel()) {
+                statsLine.setLength(0);
+                panel.addStatsLog(mouseUpdate.appendTo(statsLine));
+            }
+        }
+    }
+
+    private static long drawFrame(MainPanel panel, BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        long start = System.nanoTime();
+        panel.paintFrame(g2d);
+        long time = System.nanoTime() - start;
+        g2d.dispose();
+        return time;
+    }
+
+    // -1 when the JVM can't tell, e.g. a jlink runtime without jdk.management
+    private static long allocatedBytes() {
+        try {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } catch (LinkageError e) {
+            return -1;
+        }
+    }
+
+    // the csv is read back with Double.parseDouble, so no decimal comma
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000f);
+    }
+
+    // logs every configuration whose p50, p99 or allocation grew by more than threshold
+    // against the baseline and returns how many did
+    private static int compare(List<Object[]> rows, Path baseline, double threshold) throws IOException {
+        Map<String, String[]> baselineRows = new HashMap<>();
+        List<String> lines = Files.readAllLines(baseline);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            baselineRows.put(fields[0] + "/" + fields[1] + "/" + fields[2], fields);
+        }
+        int slower = 0;
+        for (Object[] row : rows) {
+            String[] old = baselineRows.get(row[0] + "/" + row[1] + "/" + row[2]);
+            if (old == null) continue;
+            boolean regressed = false;
+            for (int column : new int[]{5, 7}) {
+                double before = Double.parseDouble(old[column]), after = Double.parseDouble(String.valueOf(row[column]));
+                if (after > before * threshold && after - before > NOISE_MILLIS) {
+                    Log.warning("%s, ui %s, trail %s: %s %.3f -> %.3f".formatted(row[0], row[1], row[2], COLUMNS[column], before, after));
+                    regressed = true;
+                }
+            }
+            long allocBefore = Long.parseLong(old[9]), allocAfter = (long) row[9];
+            if (allocBefore >= 0 && allocAfter > allocBefore * threshold + NOISE_BYTES) {
+                Log.warning("%s, ui %s, trail %s: %s %d -> %d".formatted(row[0], row[1], row[2], COLUMNS[9], allocBefore, allocAfter));
+                regressed = true;
+            }
+            if (regressed) slower++;
+        }
+        Log.info("%d of %d configurations got slower than %s".formatted(slower, rows.size(), baseline));
+        return slower;
+    }
+
+    private static void printTable(List<Object[]> rows) {
+        List<Object[]> table = new ArrayList<>();
+        table.add(COLUMNS);
+        table.addAll(rows);
+        int[] widths = new int[COLUMNS.length];
+        for (Object[] row : table) {
+            for (int i = 0; i < row.length; i++) widths[i] = Math.max(widths[i], String.valueOf(row[i]).length());
+        }
+        for (Object[] row : table) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                String cell = String.valueOf(row[i]);
+                // left align the scenario names, right align the numbers
+                if (i == 0) stringBuilder.append(cell).append(" ".repeat(widths[i] - cell.length()));
+                else stringBuilder.append("  ").append(" ".repeat(widths[i] - cell.length())).append(cell);
+            }
+            System.out.println(stringBuilder);
+        }
+    }
+
+    private static void writeCsv(List<Object[]> rows, Path output) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output))) {
+            writer.println(String.join(",", COLUMNS));
+            for (Object[] row : rows) {
+                writer.println(Stream.of(row).map(String::valueOf).collect(Collectors.joining(",")));
+            }
+        }
+    }
+}
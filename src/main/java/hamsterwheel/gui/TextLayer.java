@@ -0,0 +1,221 @@
+package hamsterwheel.gui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// a block of text lines kept in a cached image. paintUI declares its lines every frame, but a
+// line is only formatted when its template or values changed, and only the part from the
+// first changed character on is drawn again. static lines are drawn once per font and theme
+public class TextLayer {
+
+    private static final Color CLEAR = new Color(0, 0, 0, 0);
+
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private Font font;
+    private FontMetrics metrics;
+    private int uiMultiplier = -1, lineHeight, descent;
+    private boolean darkMode;
+    private Color textColor, backgroundColor;
+    private int rgbCycle = -1;
+
+    // per line: what was declared last time and what is in the image
+    private String[] templates = new String[0], rendered = new String[0];
+    private double[] firstValues = new double[0], secondValues = new double[0];
+    private Object[] objectValues = new Object[0];
+    private int[] colors = new int[0];
+    private int lineIndex = 0, lineCount = 0;
+    private final Map<String, char[]> conversions = new IdentityHashMap<>();
+
+    // starts a frame, a different size or theme clears the image and draws everything again
+    public void begin(int uiMultiplier, boolean darkMode, Color textColor, int rgbCycle) {
+        if (uiMultiplier != this.uiMultiplier || darkMode != this.darkMode || !textColor.equals(this.textColor)) {
+            this.uiMultiplier = uiMultiplier;
+            this.darkMode = darkMode;
+            this.textColor = textColor;
+            font = new Font("Courier New", Font.PLAIN, 4 * uiMultiplier);
+            backgroundColor = darkMode ? new Color(110, 80, 100, 120) : new Color(210, 180, 200, 120);
+            lineHeight = (int) (4.5 * uiMultiplier);
+            invalidate();
+        }
+        // the rainbow colors every line by its position, so all of them change with the cycle
+        if (rgbCycle != this.rgbCycle) {
+            this.rgbCycle = rgbCycle;
+            for (int i = 0; i < colors.length; i++) colors[i] = 0;
+        }
+        lineIndex = 0;
+    }
+
+    // forgets the image, everything is drawn again on the next frame
+    public void invalidate() {
+        if (graphics != null) graphics.dispose();
+        image = null;
+        graphics = null;
+        for (int i = 0; i < rendered.length; i++) {
+            templates[i] = null;
+            rendered[i] = null;
+        }
+    }
+
+    public void line(String text) {
+        int index = nextLine();
+        templates[index] = text;
+        objectValues[index] = null;
+        render(index, text);
+    }
+
+    public void line(String template, double value) {
+        line(template, value, 0);
+    }
+
+    public void line(String template, double first, double second) {
+        int index = nextLine();
+        if (template != templates[index] || first != firstValues[index] || second != secondValues[index] || rendered[index] == null) {
+            templates[index] = template;
+            firstValues[index] = first;
+            secondValues[index] = second;
+            objectValues[index] = null;
+            char[] types = conversionsOf(template);
+            rendered[index] = null;
+            render(index, types.length == 1 ? template.formatted(box(types[0], first))
+                    : template.formatted(box(types[0], first), box(types[1], second)));
+        } else render(index, rendered[index]);
+    }
+
+    public void line(String template, Object value) {
+        int index = nextLine();
+        if (template != templates[index] || !Objects.equals(value, objectValues[index]) || rendered[index] == null) {
+            templates[index] = template;
+            objectValues[index] = value;
+            rendered[index] = null;
+            render(index, template.formatted(value));
+        } else render(index, rendered[index]);
+    }
+
+    // clears the lines that were there last frame but not this one
+    public void end() {
+        if (image != null) {
+            for (int i = lineIndex; i < lineCount; i++) {
+                graphics.setBackground(CLEAR);
+                graphics.clearRect(0, i * lineHeight, image.getWidth(), lineHeight);
+                templates[i] = null;
+                rendered[i] = null;
+            }
+        }
+        lineCount = lineIndex;
+    }
+
+    // x and y are where the first baseline goes, like drawString
+    public void draw(Graphics2D g2d, int x, int y) {
+        if (image != null) g2d.drawImage(image, x, y - lineHeight + descent, null);
+    }
+
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    private int nextLine() {
+        int index = lineIndex++;
+        if (index >= templates.length) {
+            int length = Math.max(64, templates.length * 2);
+            templates = copyOf(templates, new String[length]);
+            rendered = copyOf(rendered, new String[length]);
+            objectValues = copyOf(objectValues, new Object[length]);
+            firstValues = Arrays.copyOf(firstValues, length);
+            secondValues = Arrays.copyOf(secondValues, length);
+            colors = Arrays.copyOf(colors, length);
+        }
+        return index;
+    }
+
+    private void render(int index, String text) {
+        int color = colorOf(index);
+        String previous = rendered[index];
+        if (previous != null && colors[index] == color && (previous == text || previous.equals(text))) return;
+        ensureCapacity(index, text);
+        int from = previous == null || colors[index] != color ? 0 : firstDifference(previous, text);
+        int top = index * lineHeight;
+        int fromX = from == 0 ? 0 : metrics.stringWidth(text.substring(0, from));
+
+        graphics.setClip(0, top, image.getWidth(), lineHeight);
+        graphics.setBackground(CLEAR);
+        graphics.clearRect(fromX, top, image.getWidth() - fromX, lineHeight);
+        if (!text.isBlank()) {
+            graphics.setColor(backgroundColor);
+            graphics.fillRect(fromX, top, metrics.stringWidth(text) - fromX, lineHeight);
+            graphics.setColor(new Color(color, true));
+            graphics.drawString(from == 0 ? text : text.substring(from), fromX, top + lineHeight - descent);
+        }
+        graphics.setClip(null);
+        rendered[index] = text;
+        colors[index] = color;
+    }
+
+    // grows the image when a line doesn't fit, what is already drawn is copied over
+    private void ensureCapacity(int index, String text) {
+        if (image == null) {
+            image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            graphics = image.createGraphics();
+            graphics.setFont(font);
+            metrics = graphics.getFontMetrics();
+            descent = metrics.getDescent();
+        }
+        int width = Math.max(image.getWidth(), metrics.stringWidth(text) + 1);
+        int height = Math.max(image.getHeight(), (index + 1) * lineHeight);
+        if (width == image.getWidth() && height == image.getHeight()) return;
+        BufferedImage grown = new BufferedImage(Math.max(width, 64 * uiMultiplier), Math.max(height, 32 * lineHeight), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D grownGraphics = grown.createGraphics();
+        grownGraphics.drawImage(image, 0, 0, null);
+        grownGraphics.setFont(font);
+        graphics.dispose();
+        image = grown;
+        graphics = grownGraphics;
+    }
+
+    private int colorOf(int index) {
+        if (rgbCycle < 0) return textColor.getRGB();
+        return Color.HSBtoRGB((float) index / Math.max(1, lineCount) + rgbCycle / 100f, 1, 1);
+    }
+
+    private char[] conversionsOf(String template) {
+        char[] types = conversions.get(template);
+        if (types == null) {
+            StringBuilder found = new StringBuilder();
+            for (int i = 0; i < template.length(); i++) {
+                if (template.charAt(i) != '%') continue;
+                int j = i + 1;
+                while (j < template.length() && "-+0123456789.".indexOf(template.charAt(j)) >= 0) j++;
+                if (j < template.length() && template.charAt(j) != '%') found.append(template.charAt(j));
+                i = j;
+            }
+            types = found.toString().toCharArray();
+            conversions.put(template, types);
+        }
+        return types;
+    }
+
+    private static Object box(char type, double value) {
+        return switch (type) {
+            case 'd', 'x' -> (long) value;
+            case 's' -> String.valueOf(value);
+            default -> value;
+        };
+    }
+
+    private static int firstDifference(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) return i;
+        }
+        return length;
+    }
+
+    private static <T> T[] copyOf(T[] from, T[] to) {
+        System.arraycopy(from, 0, to, 0, from.length);
+        return to;
+    }
+}
@@ -0,0 +1,104 @@
+package hamsterwheel.gui;
+
+import hamsterwheel.core.SampleHistory;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// the trail and the coordinate dots accumulate in two images the size of the panel. each
+// frame only the samples added to the history since the last frame are drawn, so the cost
+// per frame depends on the sample rate and not on the length of the trail. with fading on,
+// everything already drawn loses some alpha every FADE_STEP_NANOS
+public class TrailLayer {
+
+    private static final long FADE_STEP_NANOS = 50_000_000;
+    private static final double FADE_HALF_LIFE_NANOS = 750_000_000;
+    private static final int PALETTE_SIZE = 256;
+
+    private final Color[] palette = new Color[PALETTE_SIZE];
+    private final Color coordinateColor, coordinateButtonPressedColor;
+
+    private BufferedImage trailImage, coordinateImage;
+    private Graphics2D trailGraphics, coordinateGraphics;
+    private int width, height;
+    private long drawnCount;
+    private long lastFade = System.nanoTime();
+    private volatile boolean invalidated = true;
+
+    public TrailLayer(Color coordinateColor, Color coordinateButtonPressedColor) {
+        this.coordinateColor = coordinateColor;
+        this.coordinateButtonPressedColor = coordinateButtonPressedColor;
+        // green for short jumps to red for the longest one
+        for (int i = 0; i < PALETTE_SIZE; i++) palette[i] = new Color(i, PALETTE_SIZE - 1 - i, 0);
+    }
+
+    // drops both images, the next frame starts over from what the history still has
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    // scaleX and scaleY map screen to panel coordinates
+    public void paint(Graphics2D g2d, SampleHistory history, int width, int height, float scaleX, float scaleY,
+                      int longestJump, boolean drawTrail, boolean drawCoordinates, boolean fade) {
+        long count = history.getCount();
+        if (invalidated || width != this.width || height != this.height || count < drawnCount) {
+            createImages(width, height);
+            drawnCount = Math.max(0, count - history.getCapacity());
+        }
+        // more samples than the history holds arrived since the last frame, the oldest ones are gone
+        long first = Math.max(drawnCount, count - history.getCapacity() + 1);
+
+        if (fade) fade();
+        float jumpToPalette = longestJump > 0 ? (PALETTE_SIZE - 1) / (float) longestJump : 0;
+        for (long n = first; n < count; n++) {
+            int x = (int) (history.getXAt(n) * scaleX), y = (int) (history.getYAt(n) * scaleY);
+            if (n > 0 && n - 1 >= count - history.getCapacity()) {
+                int previousX = history.getXAt(n - 1), previousY = history.getYAt(n - 1);
+                int dx = history.getXAt(n) - previousX, dy = history.getYAt(n) - previousY;
+                int colorIndex = (int) Math.min(PALETTE_SIZE - 1, (float) Math.sqrt(dx * dx + dy * dy) * jumpToPalette);
+                trailGraphics.setColor(palette[colorIndex]);
+                trailGraphics.drawLine((int) (previousX * scaleX), (int) (previousY * scaleY), x, y);
+            }
+            if (history.getButtonsAt(n) == 0) {
+                coordinateGraphics.setColor(coordinateColor);
+                coordinateGraphics.drawOval(x - 1, y - 1, 1, 1);
+            } else {
+                coordinateGraphics.setColor(coordinateButtonPressedColor);
+                coordinateGraphics.drawOval(x - 1, y - 1, 2, 2);
+            }
+        }
+        drawnCount = count;
+
+        if (drawTrail) g2d.drawImage(trailImage, 0, 0, null);
+        if (drawCoordinates) g2d.drawImage(coordinateImage, 0, 0, null);
+    }
+
+    private void fade() {
+        long now = System.nanoTime();
+        long elapsed = now - lastFade;
+        if (elapsed < FADE_STEP_NANOS) return;
+        lastFade = now;
+        float alpha = (float) (1 - Math.pow(0.5, elapsed / FADE_HALF_LIFE_NANOS));
+        Composite composite = AlphaComposite.getInstance(AlphaComposite.DST_OUT, Math.min(1, alpha));
+        fade(trailGraphics, composite);
+        fade(coordinateGraphics, composite);
+    }
+
+    private void fade(Graphics2D g, Composite composite) {
+        g.setComposite(composite);
+        g.fillRect(0, 0, width, height);
+        g.setComposite(AlphaComposite.SrcOver);
+    }
+
+    private void createImages(int width, int height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        invalidated = false;
+        if (trailGraphics != null) trailGraphics.dispose();
+        if (coordinateGraphics != null) coordinateGraphics.dispose();
+        trailImage = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+        coordinateImage = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+        trailGraphics = trailImage.createGraphics();
+        coordinateGraphics = coordinateImage.createGraphics();
+    }
+}
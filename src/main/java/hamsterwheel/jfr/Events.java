@@ -0,0 +1,84 @@
+package hamsterwheel.jfr;
+
+import hamsterwheel.util.Log;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+// decides whether the custom flight recorder events are emitted at all. the first event class
+// that gets loaded starts up JFR, which takes a few hundred ms, so callers check isActive()
+// before they touch an event class and nothing of jdk.jfr is loaded while no recording runs.
+// recordings started with -jfr are seen right away, ones from -XX:StartFlightRecording or
+// jcmd JFR.start when refresh() runs next, which Controller does once a second
+public class Events {
+
+    private static volatile boolean active = false;
+    private static volatile boolean unavailable = false;
+    private static Recording recording;
+
+    // true while any recording is running
+    public static boolean isActive() {
+        return active;
+    }
+
+    public static void refresh() {
+        if (unavailable) return;
+        try {
+            // asking for the recordings before anything started JFR would start it
+            boolean running = false;
+            if (FlightRecorder.isInitialized()) {
+                for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+                    if (recording.getState() == RecordingState.RUNNING) running = true;
+                }
+            }
+            active = running;
+        } catch (LinkageError e) {
+            // a runtime without the jdk.jfr module
+            unavailable = true;
+            active = false;
+        }
+    }
+
+    // the default JDK events (GC, safepoints, threads) plus every event of ours without a threshold,
+    // written to path when the recording stops
+    public static synchronized void startRecording(Path path) {
+        if (recording != null) return;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("HamsterWheel");
+            recording.enable(SampleEvent.class);
+            recording.enable(FrameEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(StatsFlushEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(MotionEvent.class);
+            recording.setToDisk(true);
+            recording.setDestination(path);
+            recording.start();
+            active = true;
+            Log.info("Flight recording started, it will be written to %s".formatted(path));
+        } catch (IOException | ParseException e) {
+            Log.error("Failed to start flight recording: %s".formatted(e.getMessage()));
+            recording = null;
+        } catch (LinkageError e) {
+            Log.error("Failed to start flight recording, the jdk.jfr module is missing");
+            unavailable = true;
+        }
+    }
+
+    // stops the recording from startRecording and writes it out, recordings started some other
+    // way are left alone
+    public static synchronized void stopRecording() {
+        if (recording == null) return;
+        Path path = recording.getDestination();
+        recording.stop();
+        recording.close();
+        recording = null;
+        refresh();
+        Log.info("Flight recording written to %s".formatted(path));
+    }
+}
@@ -0,0 +1,87 @@
+package hamsterwheel.jfr;
+
+import hamsterwheel.config.Config;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// one frame of MainPanel with the overlays that were on. by default only frames that take longer
+// than a frame at 120 FPS are kept, -jfr keeps all of them
+@Name("hamsterwheel.Frame")
+@Label("Frame")
+@Category({"HamsterWheel", "Rendering"})
+@Description("Drawing one frame of the main panel")
+@Threshold("8 ms")
+@StackTrace(false)
+public class FrameEvent extends Event {
+
+    @Label("UI Multiplier")
+    int uiMultiplier;
+
+    @Label("Active Rendering")
+    boolean activeRendering;
+
+    @Label("Trail")
+    boolean trail;
+
+    @Label("Fade Trail")
+    boolean fadeTrail;
+
+    @Label("Coordinates")
+    boolean coordinates;
+
+    @Label("Pixel Grid")
+    boolean pixelGrid;
+
+    @Label("Inch Grid")
+    boolean inchGrid;
+
+    @Label("RGB")
+    boolean rgb;
+
+    @Label("Debug Panel")
+    boolean debugPanel;
+
+    @Label("Stats Panel")
+    boolean statsPanel;
+
+    @Label("Interval Panel")
+    boolean intervalPanel;
+
+    @Label("Calibration Panel")
+    boolean calibrationPanel;
+
+    @Label("Health Panel")
+    boolean healthPanel;
+
+    // only call after Events.isActive(), returns null when the event is off
+    public static FrameEvent start() {
+        FrameEvent event = new FrameEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    public void finish(Config config) {
+        end();
+        if (!shouldCommit()) return;
+        uiMultiplier = config.getUIMultiplier();
+        activeRendering = config.isActiveRendering();
+        trail = config.isDrawTrail();
+        fadeTrail = config.isFadeTrail();
+        coordinates = config.isDrawCoordinates();
+        pixelGrid = config.isDrawPixelGrid();
+        inchGrid = config.isDrawInchGrid();
+        rgb = config.isDrawRGB();
+        debugPanel = config.isShowDebugPanel();
+        statsPanel = config.isShowPollingPanel();
+        intervalPanel = config.isShowIntervalPanel();
+        calibrationPanel = config.isShowCalibrationPanel();
+        healthPanel = config.isShowHealthPanel();
+        commit();
+    }
+}
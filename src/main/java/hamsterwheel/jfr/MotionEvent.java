@@ -0,0 +1,35 @@
+package hamsterwheel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// the cursor started moving or came to rest, as decided by the stationary timer of MainPanel
+@Name("hamsterwheel.Motion")
+@Label("Motion Change")
+@Category({"HamsterWheel", "Input"})
+@Description("The cursor started moving or became stationary")
+@StackTrace(false)
+public class MotionEvent extends Event {
+
+    @Label("Moving")
+    boolean moving;
+
+    @Label("Since Last Movement")
+    @Description("Time since the last sample that moved the cursor")
+    @Timespan(Timespan.NANOSECONDS)
+    long sinceLastMovement;
+
+    // only call after Events.isActive()
+    public static void emit(boolean moving, long sinceLastMovement) {
+        MotionEvent event = new MotionEvent();
+        if (!event.isEnabled()) return;
+        event.moving = moving;
+        event.sinceLastMovement = sinceLastMovement;
+        event.commit();
+    }
+}
@@ -0,0 +1,52 @@
+package hamsterwheel.jfr;
+
+import hamsterwheel.core.MouseUpdate;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// every sample an input source passes on. thousands a second, so it is off unless a recording
+// turns it on like -jfr does
+@Name("hamsterwheel.Sample")
+@Label("Mouse Sample")
+@Category({"HamsterWheel", "Input"})
+@Description("A sample handed from the input source to the consumers")
+@Enabled(false)
+@StackTrace(false)
+public class SampleEvent extends Event {
+
+    @Label("X")
+    int x;
+
+    @Label("Y")
+    int y;
+
+    @Label("Interval")
+    @Description("Time since the previous sample")
+    @Timespan(Timespan.NANOSECONDS)
+    long interval;
+
+    @Label("Buttons")
+    @Description("Bit n is set while mouse button n is held down")
+    int buttons;
+
+    @Label("Polling Rate")
+    int pollingRate;
+
+    // only call after Events.isActive()
+    public static void emit(MouseUpdate mouseUpdate) {
+        SampleEvent event = new SampleEvent();
+        if (!event.isEnabled()) return;
+        event.x = mouseUpdate.getX();
+        event.y = mouseUpdate.getY();
+        event.interval = mouseUpdate.hasPrevious() ? mouseUpdate.getNanosSinceLastUpdate() : 0;
+        event.buttons = mouseUpdate.getButtonsPressed();
+        event.pollingRate = mouseUpdate.getPollingRate();
+        event.commit();
+    }
+}
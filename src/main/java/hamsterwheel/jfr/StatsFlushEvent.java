@@ -0,0 +1,50 @@
+package hamsterwheel.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// a batch of the stats log going to disk: a write of the StatsWriter or a force of the mapped
+// capture. these normally take microseconds, by default only the ones that waited for the disk
+// are kept
+@Name("hamsterwheel.StatsFlush")
+@Label("Stats Log Flush")
+@Category({"HamsterWheel", "Logging"})
+@Description("Writing queued stats log records to disk")
+@Threshold("1 ms")
+@StackTrace(false)
+public class StatsFlushEvent extends Event {
+
+    @Label("Writer")
+    @Description("The encoder of the stats log or the mapped capture")
+    String writer;
+
+    @Label("Records")
+    long records;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    // only call after Events.isActive(), returns null when the event is off
+    public static StatsFlushEvent start() {
+        StatsFlushEvent event = new StatsFlushEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String writer, long records, long bytes) {
+        end();
+        if (!shouldCommit()) return;
+        this.writer = writer;
+        this.records = records;
+        this.bytes = bytes;
+        commit();
+    }
+}
@@ -0,0 +1,104 @@
+package hamsterwheel.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+// GC pauses, allocation rate, heap and CPU time of the whole process from the platform MXBeans,
+// read once a second by update() on the Scheduler thread. the allocation and CPU counters
+// come from the jdk.management module, without it (e.g. a jlink runtime with only
+// java.desktop) they stay at -1 and the rest still works
+public class JvmMetrics {
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final int processors = Runtime.getRuntime().availableProcessors();
+    private boolean extended = true;
+
+    private long lastUpdate = 0, lastGcTime = 0, lastAllocated = 0, lastCpuTime = 0;
+
+    private volatile long gcCount = 0, gcTime = 0, gcTimeLastSecond = 0, heapUsed = 0;
+    private volatile double allocationRate = -1, processCpu = -1;
+
+    public synchronized void update() {
+        long now = System.nanoTime();
+        long count = 0, time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            // -1 when a collector doesn't know
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        gcCount = count;
+        gcTime = time;
+        heapUsed = memory.getHeapMemoryUsage().getUsed();
+
+        long allocated = -1, cpuTime = -1;
+        if (extended) {
+            try {
+                allocated = allocatedBytes();
+                cpuTime = processCpuTime();
+            } catch (LinkageError e) {
+                extended = false;
+                Log.warning("jdk.management is not available, no allocation rate and process CPU");
+            }
+        }
+        if (lastUpdate != 0) {
+            double seconds = (now - lastUpdate) / 1e9;
+            gcTimeLastSecond = time - lastGcTime;
+            // threads that ended take their counters with them, so the total can go backwards
+            allocationRate = allocated < 0 ? -1 : Math.max(0, allocated - lastAllocated) / seconds;
+            processCpu = cpuTime < 0 ? -1 : (cpuTime - lastCpuTime) / 1e9 / seconds / processors * 100;
+        }
+        lastUpdate = now;
+        lastGcTime = time;
+        lastAllocated = allocated;
+        lastCpuTime = cpuTime;
+    }
+
+    // summed over the live threads, once a second the arrays don't matter
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            // -1 for threads that ended in between
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private static long processCpuTime() {
+        java.lang.management.OperatingSystemMXBean system = ManagementFactory.getOperatingSystemMXBean();
+        if (!(system instanceof com.sun.management.OperatingSystemMXBean)) return -1;
+        return ((com.sun.management.OperatingSystemMXBean) system).getProcessCpuTime();
+    }
+
+    // collections since the JVM started, of all collectors
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    // ms spent collecting since the JVM started
+    public long getGcTime() {
+        return gcTime;
+    }
+
+    public long getGcTimeLastSecond() {
+        return gcTimeLastSecond;
+    }
+
+    // bytes/s over the last second, -1 if unknown
+    public double getAllocationRate() {
+        return allocationRate;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    // CPU time of the whole process as a percentage of all cores, -1 if unknown
+    public double getProcessCpu() {
+        return processCpu;
+    }
+}
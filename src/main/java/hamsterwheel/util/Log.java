@@ -1,29 +1,58 @@
 package hamsterwheel.util;
 
+import hamsterwheel.capture.CaptureEncoder;
+import hamsterwheel.capture.CsvEncoder;
+import hamsterwheel.capture.MappedCaptureRecorder;
+import hamsterwheel.capture.SampleEncoder;
+import hamsterwheel.config.Config;
+import hamsterwheel.core.Anomaly;
+import hamsterwheel.core.Kinematics;
 import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.core.SamplerMetrics;
+import hamsterwheel.core.SamplingScheduler;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Consumer;
 
 public class Log {
     private static Date sessionStart = new Date();
     private static DateFormat fileDateFormat = new SimpleDateFormat("yyyy-MM-dd HH-mm-ss"),
             logDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final int STATS_QUEUE_CAPACITY = 65536;
     private static boolean statsLogInitialized = false;
-    private static List<Consumer<String>> logConsumers = new ArrayList<>(), statConsumers = new ArrayList<>();
+    // opened and closed under the Log lock, the consumer thread reads them without it
+    private static volatile StatsWriter statsWriter;
+    private static volatile MappedCaptureRecorder captureRecorder;
+    private static volatile int statsWriterFormat;
+    private static List<Consumer<String>> logConsumers = new ArrayList<>();
+    // stat consumers get a builder that is reused for the next sample, call toString() to keep a line
+    private static List<Consumer<CharSequence>> statConsumers = new ArrayList<>();
+    private static final StringBuilder statsLine = new StringBuilder(128);
+    private static final Kinematics statsKinematics = new Kinematics();
+    // header of the health log, the sampler columns stay empty for sources that don't poll
+    public static final String HEALTH_HEADER = "time,loop rate,sampler cpu %,pointer call p50 us,pointer call p99 us,pointer call max us,"
+            + "polls per change p50,polls per change max,consumer p50 us,consumer p99 us,consumer max us,stalls,longest stall ms,"
+            + "gc count,gc ms,gc ms last second,allocation mb/s,heap mb,process cpu %";
+    private static boolean healthLogInitialized = false;
+    // kept open while stats logging is on, anomalies come from the dispatcher thread
+    private static BufferedWriter anomalyWriter;
+    private static boolean anomalyLogFailed = false;
 
     public static void addLogConsumer(Consumer<String> logConsumer) {
         logConsumers.add(logConsumer);
     }
 
-    public static void addStatConsumer(Consumer<String> statConsumer) {
+    public static void addStatConsumer(Consumer<CharSequence> statConsumer) {
         statConsumers.add(statConsumer);
     }
 
@@ -31,7 +60,7 @@ public class Log {
         logConsumers.remove(logConsumer);
     }
 
-    public static void removeStatConsumer(Consumer<String> statConsumer) {
+    public static void removeStatConsumer(Consumer<CharSequence> statConsumer) {
         statConsumers.remove(statConsumer);
     }
 
@@ -47,35 +76,192 @@ public class Log {
         log("info", "[ERROR] " + o, true, true);
     }
 
-    public static void stats(MouseUpdate mouseUpdate, boolean writeToFile) {
+    public static void stats(MouseUpdate mouseUpdate, Config config) {
         if (!statsLogInitialized) {
-            log("stats", "nanos,x,y,pollingrate,buttonspressed", false, writeToFile);
+            log("stats", CsvEncoder.HEADER, false, false);
             statsLogInitialized = true;
         }
-        log("stats", mouseUpdate, false, writeToFile);
+        if (config.isEnableStatisticsLogging()) {
+            if (config.getStatisticsLogFormat() == Config.LOG_FORMAT_MAPPED) {
+                MappedCaptureRecorder recorder = getCaptureRecorder(config);
+                if (recorder != null) recorder.record(mouseUpdate);
+            } else {
+                StatsWriter writer = getStatsWriter(config);
+                if (writer != null) writer.offer(mouseUpdate);
+            }
+        }
+        // kept up to date even without consumers, the windows need every sample
+        statsKinematics.update(mouseUpdate);
+        if (statConsumers.isEmpty()) return;
+        statsLine.setLength(0);
+        statsKinematics.appendTo(mouseUpdate.appendTo(statsLine));
+        log("stats", statsLine, false, false);
+    }
+
+    // anomalies go to the debug panel and to one file: the anomalies log next to the stats log
+    // while stats logging is on, the info log otherwise. the detector already limits how many
+    // of them arrive
+    public static synchronized void anomaly(Anomaly anomaly, Config config) {
+        String line = anomaly.toString();
+        BufferedWriter writer = config.isEnableStatisticsLogging() ? getAnomalyWriter() : null;
+        if (writer == null) {
+            warning(line);
+            return;
+        }
+        log("info", "[WARNING] " + line, true, false);
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            closeAnomalyWriter();
+            anomalyLogFailed = true;
+            error("Failed to write anomalies log, anomalies go to the info log: %s".formatted(e.getMessage()));
+        }
+    }
+
+    private static BufferedWriter getAnomalyWriter() {
+        if (anomalyWriter == null && !anomalyLogFailed) {
+            try {
+                Files.createDirectories(Path.of("logs/"));
+                anomalyWriter = Files.newBufferedWriter(Path.of("logs/anomalies" + fileDateFormat.format(sessionStart) + ".log"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                anomalyLogFailed = true;
+                error("Failed to open anomalies log, anomalies go to the info log: %s".formatted(e.getMessage()));
+            }
+        }
+        return anomalyWriter;
+    }
+
+    private static void closeAnomalyWriter() {
+        if (anomalyWriter == null) return;
+        try {
+            anomalyWriter.close();
+        } catch (IOException e) {
+            error("Failed to close anomalies log: %s".formatted(e.getMessage()));
+        }
+        anomalyWriter = null;
+    }
+
+    // once a second while stats logging is on, so every capture has a record of how well the
+    // measurement itself ran next to it. Locale.ROOT keeps decimal commas out of the csv
+    public static void health(SamplerMetrics metrics, SamplingScheduler scheduler, JvmMetrics jvm, Config config) {
+        if (!config.isEnableStatisticsLogging()) return;
+        if (!healthLogInitialized) {
+            writeToFile("health", HEALTH_HEADER);
+            healthLogInitialized = true;
+        }
+        StringBuilder line = new StringBuilder(logDateFormat.format(new Date()));
+        if (metrics != null && scheduler != null) {
+            line.append(String.format(Locale.ROOT, ",%d,%.1f,%.1f,%.1f,%.1f,%d,%d,%.1f,%.1f,%.1f,%d,%.2f", metrics.getLoopRate(), scheduler.getCpuUsage(),
+                    metrics.getPointerCallP50() / 1000f, metrics.getPointerCallP99() / 1000f, metrics.getPointerCallMax() / 1000f,
+                    metrics.getPollsPerChangeP50(), metrics.getPollsPerChangeMax(), metrics.getConsumerCallP50() / 1000f,
+                    metrics.getConsumerCallP99() / 1000f, metrics.getConsumerCallMax() / 1000f, metrics.getStalls(),
+                    metrics.getLongestStall() / 1000000f));
+        } else {
+            line.append(",,,,,,,,,,,,");
+        }
+        line.append(String.format(Locale.ROOT, ",%d,%d,%d,%.1f,%.1f,%.1f", jvm.getGcCount(), jvm.getGcTime(), jvm.getGcTimeLastSecond(),
+                jvm.getAllocationRate() / 1000000, jvm.getHeapUsed() / 1000000f, jvm.getProcessCpu()));
+        writeToFile("health", line);
+    }
+
+    // opens the stats log on first use, switching the file format closes the current file
+    // and continues in a file of the new format
+    public static StatsWriter getStatsWriter(Config config) {
+        StatsWriter writer = statsWriter;
+        if (writer != null && statsWriterFormat == config.getStatisticsLogFormat()) return writer;
+        return openStatsWriter(config);
+    }
+
+    private static synchronized StatsWriter openStatsWriter(Config config) {
+        if (captureRecorder != null || (statsWriter != null && statsWriterFormat != config.getStatisticsLogFormat())) shutdown();
+        if (statsWriter == null) {
+            statsWriterFormat = config.getStatisticsLogFormat();
+            SampleEncoder encoder = statsWriterFormat == Config.LOG_FORMAT_BINARY
+                    ? new CaptureEncoder(config.getDpi(), config.getPollrateDivisor(), CaptureEncoder.DEFAULT_KEYFRAME_INTERVAL)
+                    : new CsvEncoder();
+            try {
+                Files.createDirectories(Path.of("logs/"));
+                statsWriter = new StatsWriter(Path.of("logs/stats" + fileDateFormat.format(sessionStart) + encoder.getFileExtension()),
+                        encoder, STATS_QUEUE_CAPACITY);
+            } catch (IOException e) {
+                // turned off instead of trying again for every sample, F11 tries again
+                config.setEnableStatisticsLogging(false);
+                error("Failed to open stats log file, poll data logging turned off: %s".formatted(e.getMessage()));
+            }
+        }
+        return statsWriter;
+    }
+
+    // samples are written straight into the mapped file on the calling thread
+    public static MappedCaptureRecorder getCaptureRecorder(Config config) {
+        MappedCaptureRecorder recorder = captureRecorder;
+        if (recorder != null) return recorder;
+        return openCaptureRecorder(config);
+    }
+
+    private static synchronized MappedCaptureRecorder openCaptureRecorder(Config config) {
+        if (statsWriter != null) shutdown();
+        if (captureRecorder == null) {
+            try {
+                Files.createDirectories(Path.of("logs/"));
+                captureRecorder = new MappedCaptureRecorder("logs/capture" + fileDateFormat.format(new Date()),
+                        MappedCaptureRecorder.DEFAULT_SEGMENT_SIZE, config.getDpi(), config.getPollrateDivisor());
+            } catch (IOException e) {
+                config.setEnableStatisticsLogging(false);
+                error("Failed to open capture segment, poll data logging turned off: %s".formatted(e.getMessage()));
+            }
+        }
+        return captureRecorder;
+    }
+
+    // flushes and closes the stats log, anything still queued ends up in the file
+    public static synchronized void shutdown() {
+        MappedCaptureRecorder recorder = captureRecorder;
+        if (recorder != null) {
+            captureRecorder = null;
+            recorder.close();
+            info("Capture closed, %d records in %d segments, %d dropped".formatted(recorder.getRecords(),
+                    recorder.getSegmentIndex(), recorder.getDropped()));
+        }
+        StatsWriter writer = statsWriter;
+        if (writer != null) {
+            statsWriter = null;
+            writer.close();
+            info("Stats log closed, %d records written, %d dropped".formatted(writer.getWritten(), writer.getDropped()));
+        }
+        closeAnomalyWriter();
     }
 
     public static void log(String file, Object o, boolean log, boolean writeToFile) {
-        String s = String.valueOf(o);
+        CharSequence s = o instanceof CharSequence ? (CharSequence) o : String.valueOf(o);
         if (log) {
-            s = "[%s] ".formatted(logDateFormat.format(new Date())) + s;
-            for (Consumer<String> logConsumer : logConsumers) logConsumer.accept(s);
-        } else for (Consumer<String> statConsumer : statConsumers) {
+            String line = "[%s] ".formatted(logDateFormat.format(new Date())) + s;
+            for (Consumer<String> logConsumer : logConsumers) logConsumer.accept(line);
+            s = line;
+        } else for (Consumer<CharSequence> statConsumer : statConsumers) {
             statConsumer.accept(s);
         }
 
-        if (writeToFile) {
+        if (writeToFile) writeToFile(file, s);
+
+    }
+
+    private static void writeToFile(String file, CharSequence s) {
+        String filename = "logs/" + file + fileDateFormat.format(sessionStart) + ".log";
+        try {
+            IO.writeToFile(filename, false, s);
+        } catch (IOException e) {
             try {
-                IO.writeToFile("logs/" + file + fileDateFormat.format(sessionStart) + ".log", false, s);
-            } catch (IOException e) {
-                try {
-                    Files.createDirectories(Path.of("logs/"));
-                    info("Created logs folder for log files");
-                } catch (IOException ioException) {
-                    System.out.println("Failed to create /logs folder for log files");
-                }
+                Files.createDirectories(Path.of("logs/"));
+                info("Created logs folder for log files");
+                // the line that found the folder missing goes in too, e.g. the header of the health log
+                IO.writeToFile(filename, false, s);
+            } catch (IOException ioException) {
+                System.out.println("Failed to create /logs folder for log files");
             }
         }
-
     }
 }
@@ -0,0 +1,68 @@
+package hamsterwheel.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// runs all periodic work of the app (stationary timer, RGB cycle, polling rate measurement)
+// on one named daemon thread. owners schedule their tasks through a Group and cancel the
+// group when they go away, so rebuilding the frame doesn't leave threads or tasks behind
+public class Scheduler {
+
+    private static final ScheduledThreadPoolExecutor executor = createExecutor();
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // cancelled tasks are dropped right away instead of waiting for their next run
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    // cancels everything still scheduled and waits for a running task to finish
+    public static void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static int getTaskCount() {
+        return executor.getQueue().size();
+    }
+
+    // the tasks of one owner
+    public static class Group {
+
+        private final String name;
+        private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+
+        public Group(String name) {
+            this.name = name;
+        }
+
+        // a task that throws is logged and keeps running on its schedule
+        public synchronized void every(long period, TimeUnit unit, String taskName, Runnable task) {
+            if (executor.isShutdown()) return;
+            tasks.add(executor.scheduleAtFixedRate(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.error("Scheduled task %s/%s failed: %s".formatted(name, taskName, e));
+                }
+            }, period, period, unit));
+        }
+
+        public synchronized void cancel() {
+            for (ScheduledFuture<?> task : tasks) task.cancel(false);
+            tasks.clear();
+        }
+    }
+}
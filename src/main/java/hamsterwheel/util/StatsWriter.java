@@ -0,0 +1,166 @@
+package hamsterwheel.util;
+
+import hamsterwheel.capture.SampleEncoder;
+import hamsterwheel.core.MouseUpdate;
+import hamsterwheel.jfr.Events;
+import hamsterwheel.jfr.StatsFlushEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// writes stats records on a background thread so the sampling thread only has to copy
+// a few primitives into a bounded queue, the file stays open and is written in batches
+public class StatsWriter {
+
+    private static final int BATCH_SIZE = 512;
+    private static final long FLUSH_INTERVAL_NANOS = 50_000_000;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long DROP_REPORT_INTERVAL_NANOS = 1_000_000_000;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final SampleEncoder encoder;
+    private final String encoderName;
+    private final Thread writerThread;
+
+    // single producer / single consumer queue kept in primitive arrays
+    private final int capacity;
+    private final long[] times, intervals;
+    private final int[] xs, ys, dpis, pollingRates, buttons;
+    private volatile long head = 0, tail = 0;
+
+    private volatile boolean running = true;
+    private volatile long written = 0, dropped = 0;
+    private long bytesWritten = 0;
+    private long reportedDropped = 0, lastDropReport = 0;
+
+    public StatsWriter(Path path, SampleEncoder encoder, int capacity) throws IOException {
+        this.encoder = encoder;
+        this.encoderName = encoder.getClass().getSimpleName();
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.intervals = new long[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.dpis = new int[capacity];
+        this.pollingRates = new int[capacity];
+        this.buttons = new int[capacity];
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) encoder.writeHeader(buffer);
+
+        writerThread = new Thread(this::run, "StatsWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // called from the sampling thread, never blocks: returns false and counts the record
+    // as dropped when the writer can't keep up
+    public boolean offer(MouseUpdate mouseUpdate) {
+        long t = tail;
+        if (t - head >= capacity) {
+            dropped++;
+            return false;
+        }
+        int index = (int) (t % capacity);
+        times[index] = mouseUpdate.getTime();
+        intervals[index] = mouseUpdate.getNanosSinceLastUpdate();
+        xs[index] = mouseUpdate.getX();
+        ys[index] = mouseUpdate.getY();
+        dpis[index] = mouseUpdate.getDpi();
+        pollingRates[index] = mouseUpdate.getPollingRate();
+        buttons[index] = mouseUpdate.getButtonsPressed();
+        tail = t + 1;
+        return true;
+    }
+
+    // stops the writer thread after everything still queued has been written
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public String getFileExtension() {
+        return encoder.getFileExtension();
+    }
+
+    public long getQueued() {
+        return tail - head;
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+        try {
+            while (running) {
+                long queued = tail - head;
+                if (queued >= BATCH_SIZE || (queued > 0 && System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS)) {
+                    drain();
+                    lastFlush = System.nanoTime();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                if (System.nanoTime() - lastDropReport >= DROP_REPORT_INTERVAL_NANOS) reportDropped();
+            }
+            drain();
+            reportDropped();
+        } catch (IOException e) {
+            Log.error("Failed to write stats log: %s".formatted(e.getMessage()));
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        // the event class isn't loaded while no flight recording runs
+        StatsFlushEvent event = Events.isActive() ? StatsFlushEvent.start() : null;
+        long h = head, t = tail, first = h, bytesBefore = bytesWritten;
+        while (h < t) {
+            int index = (int) (h % capacity);
+            if (buffer.remaining() < SampleEncoder.MAX_RECORD_BYTES) flush();
+            encoder.encode(buffer, times[index], intervals[index], xs[index], ys[index], dpis[index], pollingRates[index], buttons[index]);
+            h++;
+            // free the slots as soon as the record is copied so the producer can reuse them
+            head = h;
+            written++;
+        }
+        flush();
+        if (event != null) event.finish(encoderName, t - first, bytesWritten - bytesBefore);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void reportDropped() {
+        lastDropReport = System.nanoTime();
+        long d = dropped;
+        if (d != reportedDropped) {
+            Log.warning("Stats log queue full, dropped %d records (%d total)".formatted(d - reportedDropped, d));
+            reportedDropped = d;
+        }
+    }
+}
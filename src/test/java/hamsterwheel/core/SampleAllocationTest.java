@@ -0,0 +1,76 @@
+package hamsterwheel.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the per-sample path must not allocate once it is warmed up: filling the reused MouseUpdate,
+// copying it into the one a consumer keeps, adding it to the sample history and formatting the
+// stats line into a reused builder, and handing the sample to a consumer queue
+class SampleAllocationTest {
+
+    private static final int WARMUP_SAMPLES = 200_000, SAMPLES = 100_000;
+
+    private final MouseUpdate mouseUpdate = new MouseUpdate(), latestUpdate = new MouseUpdate();
+    private final SampleHistory history = new SampleHistory(4096);
+    private final StringBuilder statsLine = new StringBuilder(128);
+    private SampleQueue queue;
+    private com.sun.management.ThreadMXBean threads;
+    private long time = 0;
+
+    @BeforeEach
+    void setUp() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) queue.close();
+    }
+
+    @Test
+    void steadyStateSamplesDontAllocate() {
+        assertEquals(0, allocatedBytes(i -> {
+            sample(i);
+            latestUpdate.copyFrom(mouseUpdate);
+            history.add(latestUpdate.getTime(), latestUpdate.getX(), latestUpdate.getY(), latestUpdate.getButtonsPressed());
+            statsLine.setLength(0);
+            mouseUpdate.appendTo(statsLine);
+        }), "bytes allocated by %d samples".formatted(SAMPLES));
+    }
+
+    @Test
+    void queueOfferDoesntAllocate() {
+        queue = new SampleQueue("test", update -> {
+        }, SampleDispatcher.DEFAULT_QUEUE_CAPACITY, SampleQueue.OVERFLOW_DROP);
+        assertEquals(0, allocatedBytes(i -> {
+            sample(i);
+            queue.offer(mouseUpdate);
+        }), "bytes allocated by %d offers".formatted(SAMPLES));
+    }
+
+    // bytes the calling thread allocates for SAMPLES samples after WARMUP_SAMPLES
+    private long allocatedBytes(IntConsumer perSample) {
+        for (int i = 0; i < WARMUP_SAMPLES; i++) perSample.accept(i);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < SAMPLES; i++) perSample.accept(i);
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void sample(int i) {
+        time += 125_000;
+        mouseUpdate.set(time, 960 + i % 400, 540 - i % 300, 1600, 8000, i & 2);
+        mouseUpdate.setHasPrevious(true);
+    }
+}